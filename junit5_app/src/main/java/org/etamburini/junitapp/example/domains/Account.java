@@ -1,15 +1,29 @@
 package org.etamburini.junitapp.example.domains;
 
 import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.etamburini.junitapp.example.metrics.BankMetrics;
 
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class Account {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final long id;
+    private final ReentrantLock lock;
     private String person;
     private BigDecimal amount;
     private Bank bank;
 
     public Account(final String person,final BigDecimal amount) {
+        this(person, amount, SEQUENCE.incrementAndGet(), new ReentrantLock());
+    }
+
+    // The views of an off-heap ledger share the lock of their stripe and take their id from their row
+    Account(final String person, final BigDecimal amount, final long id, final ReentrantLock lock) {
+        this.id = id;
+        this.lock = lock;
         this.amount = amount;
         this.person = person;
     }
@@ -18,16 +32,52 @@ public class Account {
         return person;
     }
 
+    // The lock is held until the rename is journaled, so a debit or a credit is journaled under the new holder after it
     public void setPerson(final  String person) {
-        this.person = person;
+        lock.lock();
+        try {
+            final String previousPerson = this.person;
+            this.person = person;
+            final Bank bank = this.bank;
+            if (bank != null) {
+                try {
+                    bank.personChanged(this, previousPerson);
+                } catch (RuntimeException e) {
+                    this.person = previousPerson;
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public BigDecimal getAmount() {
-        return amount;
+        lock.lock();
+        try {
+            return amount;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void setAmount(final  BigDecimal amount) {
-        this.amount = amount;
+        lock.lock();
+        try {
+            final BigDecimal previousAmount = getAmount();
+            assign(amount);
+            final Bank bank = this.bank;
+            if (bank != null) {
+                try {
+                    bank.recordAmount(this, amount);
+                } catch (RuntimeException e) {
+                    assign(previousAmount);
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public Bank getBank() {
@@ -38,17 +88,121 @@ public class Account {
         this.bank = bank;
     }
 
-    public void debit(final BigDecimal amount) {
+    public long getId() {
+        return id;
+    }
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    boolean isLockFreeCredit() {
+        return false;
+    }
+
+    protected void balanceChanged() {
+        final Bank bank = this.bank;
+        if (bank != null) {
+            bank.balanceChanged(this);
+        }
+    }
+
+    void assign(final BigDecimal amount) {
+        this.amount = amount;
+        balanceChanged();
+    }
+
+    void withdraw(final BigDecimal amount) {
         final BigDecimal newAmount = this.amount.subtract(amount);
         if (newAmount.compareTo(BigDecimal.ZERO) < 0) {
             throw new InsufficientMoneyException("Insufficient Money");
         }
 
         this.amount = newAmount;
+        balanceChanged();
     }
 
-    public void credit(final BigDecimal amount) {
+    void deposit(final BigDecimal amount) {
         this.amount = this.amount.add(amount);
+        balanceChanged();
+    }
+
+    void checkDeposit(final BigDecimal amount) {
+    }
+
+    BankMetrics metrics() {
+        final Bank bank = this.bank;
+        return bank == null ? null : bank.getMetrics();
+    }
+
+    public void debit(final BigDecimal amount) {
+        final BankMetrics metrics = metrics();
+        if (metrics == null) {
+            journaledDebit(amount);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            journaledDebit(amount);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(BankMetrics.Operation.DEBIT, start, e);
+            throw e;
+        }
+        metrics.recordSuccess(BankMetrics.Operation.DEBIT, start);
+    }
+
+    public void credit(final BigDecimal amount) {
+        final BankMetrics metrics = metrics();
+        if (metrics == null) {
+            journaledCredit(amount);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            journaledCredit(amount);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(BankMetrics.Operation.CREDIT, start, e);
+            throw e;
+        }
+        metrics.recordSuccess(BankMetrics.Operation.CREDIT, start);
+    }
+
+    private void journaledDebit(final BigDecimal amount) {
+        lock.lock();
+        try {
+            withdraw(amount);
+            final Bank bank = this.bank;
+            if (bank != null) {
+                try {
+                    bank.recordDebit(this, amount);
+                } catch (RuntimeException e) {
+                    deposit(amount);
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void journaledCredit(final BigDecimal amount) {
+        lock.lock();
+        try {
+            deposit(amount);
+            final Bank bank = this.bank;
+            if (bank != null) {
+                try {
+                    bank.recordCredit(this, amount);
+                } catch (RuntimeException e) {
+                    withdraw(amount);
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -57,10 +211,10 @@ public class Account {
             return false;
         }
 
-        if (this.person == null || this.amount == null) {
+        if (this.person == null || this.getAmount() == null) {
             return false;
         }
 
-        return this.person.equals(account.getPerson()) && this.amount.equals(this.getAmount());
+        return this.person.equals(account.getPerson()) && this.getAmount().equals(this.getAmount());
     }
 }
@@ -0,0 +1,27 @@
+package org.etamburini.junitapp.example.domains;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+public record BalanceSummary(long count, BigDecimal total, BigDecimal min, BigDecimal max) {
+    public static final BalanceSummary EMPTY = new BalanceSummary(0, BigDecimal.ZERO, null, null);
+
+    public static BalanceSummary of(final BigDecimal amount) {
+        return new BalanceSummary(1, amount, amount, amount);
+    }
+
+    public BalanceSummary combine(final BalanceSummary other) {
+        if (count == 0) {
+            return other;
+        }
+        if (other.count == 0) {
+            return this;
+        }
+        return new BalanceSummary(count + other.count, total.add(other.total),
+                min.compareTo(other.min) <= 0 ? min : other.min, max.compareTo(other.max) >= 0 ? max : other.max);
+    }
+
+    public BigDecimal average() {
+        return count == 0 ? null : total.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+    }
+}
@@ -0,0 +1,9 @@
+package org.etamburini.junitapp.example.domains;
+
+import java.util.List;
+
+public record BalanceUpdateResult(int updated, List<Account> rejected) {
+    public boolean isComplete() {
+        return rejected.isEmpty();
+    }
+}
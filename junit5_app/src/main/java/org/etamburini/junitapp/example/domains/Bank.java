@@ -1,17 +1,78 @@
 package org.etamburini.junitapp.example.domains;
 
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.etamburini.junitapp.example.journals.TransferJournal;
+import org.etamburini.junitapp.example.metrics.BankMetrics;
+
 import java.math.BigDecimal;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 public class Bank {
+    private static final int GATES = 64;
+
     private String name;
 
-    private List<Account> accounts;
+    // The accounts in the order they were added, changed under the monitor of the bank. A published list never changes:
+    // an add writes past the size of every list published on the same array and a remove copies the accounts
+    private volatile AccountList accounts = AccountList.EMPTY;
+
+    private final Map<String, Account> accountsByPerson;
+
+    private final ConcurrentSkipListMap<BalanceKey, Account> accountsByBalance;
+
+    private final Map<Long, BalanceKey> balanceKeys;
+
+    private final OffHeapLedger ledger;
+
+    // The transfers and the lock-free credits take one gate in shared mode and the bulk operations take all of them,
+    // so a bulk operation runs between transfers without locking every account
+    private final ReentrantReadWriteLock[] gates = newGates();
+
+    private volatile TransferJournal journal;
+
+    private volatile BankMetrics metrics;
 
     public Bank(String name) {
+        this(name, false);
+    }
+
+    public Bank(final String name, final boolean balanceIndex) {
         this.name = name;
-        this.accounts = new ArrayList<>();
+        this.accountsByPerson = new ConcurrentHashMap<>();
+        this.accountsByBalance = balanceIndex ? new ConcurrentSkipListMap<>() : null;
+        this.balanceKeys = balanceIndex ? new ConcurrentHashMap<>() : null;
+        this.ledger = null;
+    }
+
+    // The accounts are kept in the ledger, the bank hands out views of its rows
+    public Bank(final String name, final OffHeapLedger ledger) {
+        this.name = name;
+        this.accountsByPerson = new ConcurrentHashMap<>();
+        this.accountsByBalance = null;
+        this.balanceKeys = null;
+        this.ledger = ledger;
+        ledger.bind(this);
     }
 
     public String getName() {
@@ -22,21 +83,625 @@ public class Bank {
         this.name = name;
     }
 
+    public TransferJournal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(final TransferJournal journal) {
+        this.journal = journal;
+    }
+
+    public boolean isJournaled() {
+        return journal != null;
+    }
+
+    public OffHeapLedger getLedger() {
+        return ledger;
+    }
+
+    public BankMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(final BankMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public List<Account> getAccounts() {
+        if (ledger != null) {
+            return ledger.accounts();
+        }
         return accounts;
     }
 
-    public void setAccounts(List<Account> accounts) {
-        this.accounts = accounts;
+    public synchronized void setAccounts(List<Account> accounts) {
+        for (Account account : new ArrayList<>(getAccounts())) {
+            removeAccount(account);
+        }
+        accounts.forEach(this::addAccount);
+    }
+
+    public synchronized void addAccount(final Account account) {
+        if (ledger != null) {
+            addLedgerAccount(account);
+            return;
+        }
+        if (accountsByPerson.putIfAbsent(account.getPerson(), account) != null) {
+            throw new IllegalArgumentException("There is already an account for " + account.getPerson());
+        }
+        account.getLock().lock();
+        try {
+            final TransferJournal journal = this.journal;
+            if (journal != null) {
+                try {
+                    journal.appendOpen(account.getPerson(), account.getAmount());
+                } catch (RuntimeException e) {
+                    accountsByPerson.remove(account.getPerson(), account);
+                    throw e;
+                }
+            }
+            accounts = accounts.with(account);
+            account.setBank(this);
+            balanceChanged(account);
+        } finally {
+            account.getLock().unlock();
+        }
+    }
+
+    // The account is copied in a new row of the ledger, the bank then works on the views returned by findAccount
+    private void addLedgerAccount(final Account account) {
+        final int row = ledger.open(account.getPerson(), account.getAmount());
+        final TransferJournal journal = this.journal;
+        if (journal != null) {
+            try {
+                journal.appendOpen(account.getPerson(), account.getAmount());
+            } catch (RuntimeException e) {
+                final ReentrantLock lock = ledger.lockOf(row);
+                lock.lock();
+                try {
+                    ledger.close(row);
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+        }
+    }
+
+    public synchronized boolean removeAccount(final Account account) {
+        if (ledger != null) {
+            return removeLedgerAccount(account);
+        }
+        if (accountsByPerson.get(account.getPerson()) != account) {
+            return false;
+        }
+        account.getLock().lock();
+        try {
+            final TransferJournal journal = this.journal;
+            if (journal != null) {
+                journal.appendClose(account.getPerson());
+            }
+            accountsByPerson.remove(account.getPerson(), account);
+            accounts = accounts.without(account);
+            account.setBank(null);
+            if (accountsByBalance != null) {
+                final BalanceKey key = balanceKeys.remove(account.getId());
+                if (key != null) {
+                    accountsByBalance.remove(key, account);
+                }
+            }
+        } finally {
+            account.getLock().unlock();
+        }
+
+        return true;
+    }
+
+    private boolean removeLedgerAccount(final Account account) {
+        if (!(account instanceof LedgerAccount view) || view.getLedger() != ledger) {
+            return false;
+        }
+        view.getLock().lock();
+        try {
+            if (!ledger.isOpen(view.getRow())) {
+                return false;
+            }
+            final TransferJournal journal = this.journal;
+            if (journal != null) {
+                journal.appendClose(view.getPerson());
+            }
+            ledger.close(view.getRow());
+            view.setBank(null);
+        } finally {
+            view.getLock().unlock();
+        }
+
+        return true;
+    }
+
+    public Optional<Account> findAccount(final String person) {
+        if (ledger != null) {
+            final int row = ledger.find(person);
+            return row < 0 ? Optional.empty() : Optional.of(ledger.view(row));
+        }
+        return Optional.ofNullable(accountsByPerson.get(person));
+    }
+
+    public List<Account> findAccountsByAmountBetween(final BigDecimal min, final BigDecimal max) {
+        if (accountsByBalance == null) {
+            throw new IllegalStateException("The bank " + name + " does not have a balance index");
+        }
+
+        return List.copyOf(accountsByBalance.subMap(new BalanceKey(min, Long.MIN_VALUE), true,
+                new BalanceKey(max, Long.MAX_VALUE), true).values());
+    }
+
+    // Every account is updated under its own lock and journaled like setAmount, a result below zero is rejected
+    // like a debit and leaves the account as it was. The transfers wait until the update is over, so a transfer
+    // cannot move money between an updated account and one still to update, the function must not transfer itself.
+    // The accounts are split between the threads of the common fork-join pool.
+    public BalanceUpdateResult updateBalances(final UnaryOperator<BigDecimal> function) {
+        final List<Account> rejected = Collections.synchronizedList(new ArrayList<>());
+        lockGates();
+        try {
+            final long updated = getAccounts().parallelStream()
+                    .filter(account -> updateBalance(account, function, rejected))
+                    .count();
+
+            return new BalanceUpdateResult((int) updated, List.copyOf(rejected));
+        } finally {
+            unlockGates();
+        }
+    }
+
+    private boolean updateBalance(final Account account, final UnaryOperator<BigDecimal> function, final List<Account> rejected) {
+        account.getLock().lock();
+        try {
+            if (!belongs(account)) {
+                return false;
+            }
+            final BigDecimal amount = account.getAmount();
+            final BigDecimal newAmount = function.apply(amount);
+            if (newAmount.compareTo(amount) == 0) {
+                return false;
+            }
+            if (newAmount.signum() < 0) {
+                rejected.add(account);
+                return false;
+            }
+            account.setAmount(newAmount);
+            return true;
+        } catch (ArithmeticException e) {
+            rejected.add(account);
+            return false;
+        } finally {
+            account.getLock().unlock();
+        }
+    }
+
+    public BigDecimal totalAmount() {
+        if (ledger != null) {
+            return ledger.totalAmount();
+        }
+        return withTransfersPaused(accounts -> accounts.reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    public BalanceSummary summarizeBalances() {
+        if (ledger != null) {
+            return ledger.summarizeBalances();
+        }
+        return withTransfersPaused(accounts -> accounts.map(BalanceSummary::of).reduce(BalanceSummary.EMPTY, BalanceSummary::combine));
+    }
+
+    public List<Account> findAccounts(final Predicate<BigDecimal> predicate) {
+        if (ledger != null) {
+            return ledger.findAccounts(predicate);
+        }
+        lockGates();
+        try {
+            return getAccounts().parallelStream()
+                    .filter(account -> {
+                        final BigDecimal amount = amountIfBelongs(account);
+                        return amount != null && predicate.test(amount);
+                    })
+                    .toList();
+        } finally {
+            unlockGates();
+        }
+    }
+
+    // Every balance is read under the lock of its account, a single account operation is seen either before or after the scan
+    // and no transfer runs during the scan. The balances are read by the threads of the common fork-join pool.
+    private <R> R withTransfersPaused(final Function<Stream<BigDecimal>, R> scan) {
+        lockGates();
+        try {
+            return scan.apply(getAccounts().parallelStream()
+                    .map(this::amountIfBelongs)
+                    .filter(Objects::nonNull));
+        } finally {
+            unlockGates();
+        }
+    }
+
+    // Nothing changes in the bank while the reader runs on the calling thread: the transfers and the lock-free credits
+    // wait on the gates, the accounts are added and removed under the monitor and every account is locked in id order
+    public <R> R withBankFrozen(final Function<List<Account>, R> reader) {
+        lockGates();
+        try {
+            synchronized (this) {
+                if (ledger != null) {
+                    ledger.lockAll();
+                    try {
+                        return reader.apply(ledger.accounts());
+                    } finally {
+                        ledger.unlockAll();
+                    }
+                }
+                final List<Account> frozen = accounts;
+                final Account[] locked = frozen.toArray(new Account[0]);
+                Arrays.sort(locked, Comparator.comparingLong(Account::getId));
+                int count = 0;
+                try {
+                    for (; count < locked.length; count++) {
+                        locked[count].getLock().lock();
+                    }
+                    return reader.apply(frozen);
+                } finally {
+                    for (int i = count - 1; i >= 0; i--) {
+                        locked[i].getLock().unlock();
+                    }
+                }
+            }
+        } finally {
+            unlockGates();
+        }
+    }
+
+    private BigDecimal amountIfBelongs(final Account account) {
+        account.getLock().lock();
+        try {
+            return belongs(account) ? account.getAmount() : null;
+        } finally {
+            account.getLock().unlock();
+        }
     }
 
-    public void addAccount(final Account account) {
-        accounts.add(account);
-        account.setBank(this);
+    private static ReentrantReadWriteLock[] newGates() {
+        final ReentrantReadWriteLock[] gates = new ReentrantReadWriteLock[GATES];
+        for (int i = 0; i < GATES; i++) {
+            gates[i] = new ReentrantReadWriteLock();
+        }
+        return gates;
+    }
+
+    Lock gate() {
+        return gates[(int) (Thread.currentThread().threadId() & (GATES - 1))].readLock();
+    }
+
+    private void lockGates() {
+        for (ReentrantReadWriteLock gate : gates) {
+            gate.writeLock().lock();
+        }
+    }
+
+    private void unlockGates() {
+        for (int i = gates.length - 1; i >= 0; i--) {
+            gates[i].writeLock().unlock();
+        }
+    }
+
+    // The caller holds the lock of the account, an account removed after the snapshot is left out
+    private boolean belongs(final Account account) {
+        if (account instanceof LedgerAccount view && view.getLedger() == ledger) {
+            return ledger.isOpen(view.getRow());
+        }
+        return account.getBank() == this;
+    }
+
+    boolean hasBalanceIndex() {
+        return accountsByBalance != null;
+    }
+
+    void personChanged(final Account account, final String previousPerson) {
+        if (accountsByPerson.remove(previousPerson, account)
+                && accountsByPerson.putIfAbsent(account.getPerson(), account) != null) {
+            accountsByPerson.put(previousPerson, account);
+            throw new IllegalArgumentException("There is already an account for " + account.getPerson());
+        }
+
+        final TransferJournal journal = this.journal;
+        if (journal != null) {
+            try {
+                journal.appendRename(previousPerson, account.getPerson());
+            } catch (RuntimeException e) {
+                accountsByPerson.remove(account.getPerson(), account);
+                accountsByPerson.put(previousPerson, account);
+                throw e;
+            }
+        }
+    }
+
+    void recordAmount(final Account account, final BigDecimal amount) {
+        final TransferJournal journal = this.journal;
+        if (journal != null) {
+            journal.appendAmount(account.getPerson(), amount);
+        }
+    }
+
+    void recordRename(final String previousPerson, final String person) {
+        final TransferJournal journal = this.journal;
+        if (journal != null) {
+            journal.appendRename(previousPerson, person);
+        }
+    }
+
+    void recordDebit(final Account account, final BigDecimal amount) {
+        final TransferJournal journal = this.journal;
+        if (journal != null) {
+            journal.appendDebit(account.getPerson(), amount);
+        }
+    }
+
+    void recordCredit(final Account account, final BigDecimal amount) {
+        final TransferJournal journal = this.journal;
+        if (journal != null) {
+            journal.appendCredit(account.getPerson(), amount);
+        }
+    }
+
+    void balanceChanged(final Account account) {
+        if (accountsByBalance == null) {
+            return;
+        }
+
+        final BigDecimal amount = account.getAmount();
+        final BalanceKey key = new BalanceKey(amount == null ? BigDecimal.ZERO : amount, account.getId());
+        final BalanceKey previousKey = balanceKeys.put(account.getId(), key);
+        if (previousKey != null) {
+            accountsByBalance.remove(previousKey, account);
+        }
+        accountsByBalance.put(key, account);
     }
 
     public void transfer(final Account origin, final Account destination, final BigDecimal amount) {
-        origin.debit(amount);
-        destination.credit(amount);
+        final BankMetrics metrics = this.metrics;
+        if (metrics == null) {
+            lockedTransfer(origin, destination, amount);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            lockedTransfer(origin, destination, amount);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(BankMetrics.Operation.TRANSFER, start, e);
+            throw e;
+        }
+        metrics.recordSuccess(BankMetrics.Operation.TRANSFER, start);
+    }
+
+    private void lockedTransfer(final Account origin, final Account destination, final BigDecimal amount) {
+        final Lock gate = gate();
+        gate.lock();
+        try {
+            lockedAccountsTransfer(origin, destination, amount);
+        } finally {
+            gate.unlock();
+        }
+    }
+
+    private void lockedAccountsTransfer(final Account origin, final Account destination, final BigDecimal amount) {
+        if (destination.isLockFreeCredit() && origin != destination) {
+            origin.getLock().lock();
+            try {
+                move(origin, destination, amount);
+            } finally {
+                origin.getLock().unlock();
+            }
+            return;
+        }
+
+        final Account first = origin.getId() <= destination.getId() ? origin : destination;
+        final Account second = first == origin ? destination : origin;
+
+        first.getLock().lock();
+        try {
+            second.getLock().lock();
+            try {
+                move(origin, destination, amount);
+            } finally {
+                second.getLock().unlock();
+            }
+        } finally {
+            first.getLock().unlock();
+        }
+    }
+
+    private void move(final Account origin, final Account destination, final BigDecimal amount) {
+        origin.withdraw(amount);
+        try {
+            destination.checkDeposit(amount);
+            final TransferJournal journal = this.journal;
+            if (journal != null) {
+                journal.appendTransfer(origin.getPerson(), destination.getPerson(), amount);
+            }
+        } catch (RuntimeException e) {
+            origin.deposit(amount);
+            throw e;
+        }
+        destination.deposit(amount);
+    }
+
+    public List<TransferResult> transfer(final List<Transfer> transfers) {
+        final TransferResult.Status[] statuses = new TransferResult.Status[transfers.size()];
+        final Map<Account, BigDecimal> netAmounts = new IdentityHashMap<>();
+        // The views of a ledger are new objects on every lookup, so the accounts are matched by id
+        final Map<Long, Account> accountsById = new HashMap<>();
+        boolean valid = true;
+        for (int i = 0; i < transfers.size(); i++) {
+            final Transfer transfer = transfers.get(i);
+            if (transfer == null || transfer.origin() == null || transfer.destination() == null
+                    || transfer.amount() == null || transfer.amount().signum() <= 0) {
+                statuses[i] = TransferResult.Status.INVALID;
+                valid = false;
+                continue;
+            }
+            final Account origin = accountsById.computeIfAbsent(transfer.origin().getId(), id -> transfer.origin());
+            final Account destination = accountsById.computeIfAbsent(transfer.destination().getId(), id -> transfer.destination());
+            netAmounts.merge(origin, transfer.amount().negate(), BigDecimal::add);
+            netAmounts.merge(destination, transfer.amount(), BigDecimal::add);
+        }
+
+        if (!valid) {
+            return toResults(transfers, statuses);
+        }
+
+        final List<Account> lockedAccounts = new ArrayList<>(netAmounts.keySet());
+        lockedAccounts.sort(Comparator.comparingLong(Account::getId));
+        final Lock gate = gate();
+        gate.lock();
+        lockedAccounts.forEach(account -> account.getLock().lock());
+        try {
+            for (int i = 0; i < transfers.size(); i++) {
+                final Account origin = accountsById.get(transfers.get(i).origin().getId());
+                if (origin.getAmount().add(netAmounts.get(origin)).signum() < 0) {
+                    statuses[i] = TransferResult.Status.INSUFFICIENT_MONEY;
+                    valid = false;
+                }
+            }
+
+            if (valid) {
+                applyNetAmounts(netAmounts, lockedAccounts, statuses);
+            }
+        } finally {
+            for (int i = lockedAccounts.size() - 1; i >= 0; i--) {
+                lockedAccounts.get(i).getLock().unlock();
+            }
+            gate.unlock();
+        }
+
+        return toResults(transfers, statuses);
+    }
+
+    private void applyNetAmounts(final Map<Account, BigDecimal> netAmounts, final List<Account> accounts,
+                                 final TransferResult.Status[] statuses) {
+        final Map<String, BigDecimal> journaledAmounts = new LinkedHashMap<>();
+        try {
+            for (Account account : accounts) {
+                final BigDecimal netAmount = netAmounts.get(account);
+                if (netAmount.signum() > 0) {
+                    account.checkDeposit(netAmount);
+                }
+                if (netAmount.signum() != 0) {
+                    journaledAmounts.put(account.getPerson(), netAmount);
+                }
+            }
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            Arrays.fill(statuses, TransferResult.Status.INVALID);
+            return;
+        }
+
+        final BigDecimal[] previousAmounts = new BigDecimal[accounts.size()];
+        int applied = 0;
+        try {
+            for (; applied < accounts.size(); applied++) {
+                final Account account = accounts.get(applied);
+                final BigDecimal netAmount = netAmounts.get(account);
+                previousAmounts[applied] = account.getAmount();
+                if (netAmount.signum() > 0) {
+                    account.deposit(netAmount);
+                } else if (netAmount.signum() < 0) {
+                    account.withdraw(netAmount.negate());
+                }
+            }
+        } catch (InsufficientMoneyException | ArithmeticException e) {
+            restore(accounts, previousAmounts, applied);
+            Arrays.fill(statuses, TransferResult.Status.INVALID);
+            return;
+        }
+
+        // The batch is journaled once it is applied, so a batch that failed leaves nothing in the journal
+        final TransferJournal journal = this.journal;
+        if (journal != null && !journaledAmounts.isEmpty()) {
+            try {
+                journal.appendBatch(journaledAmounts);
+            } catch (RuntimeException e) {
+                restore(accounts, previousAmounts, applied);
+                throw e;
+            }
+        }
+        Arrays.fill(statuses, TransferResult.Status.APPLIED);
+    }
+
+    // The balances are restored without the journal, they were never journaled
+    private static void restore(final List<Account> accounts, final BigDecimal[] previousAmounts, final int applied) {
+        for (int i = applied - 1; i >= 0; i--) {
+            accounts.get(i).assign(previousAmounts[i]);
+        }
+    }
+
+    private List<TransferResult> toResults(final List<Transfer> transfers, final TransferResult.Status[] statuses) {
+        final List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            final TransferResult.Status status = statuses[i] == null ? TransferResult.Status.ABORTED : statuses[i];
+            results.add(new TransferResult(transfers.get(i), status, switch (status) {
+                case APPLIED -> "Applied";
+                case INVALID -> "Invalid transfer";
+                case INSUFFICIENT_MONEY -> "Insufficient Money";
+                case ABORTED -> "Aborted by another transfer of the batch";
+            }));
+        }
+
+        return results;
+    }
+
+    private record BalanceKey(BigDecimal amount, long id) implements Comparable<BalanceKey> {
+        @Override
+        public int compareTo(final BalanceKey other) {
+            final int result = amount.compareTo(other.amount);
+            return result != 0 ? result : Long.compare(id, other.id);
+        }
+    }
+
+    private static final class AccountList extends AbstractList<Account> implements RandomAccess {
+        // Shared by the banks, so it has no room and the first add of a bank makes its own array
+        private static final AccountList EMPTY = new AccountList(new Account[0], 0);
+
+        private final Account[] accounts;
+        private final int size;
+
+        private AccountList(final Account[] accounts, final int size) {
+            this.accounts = accounts;
+            this.size = size;
+        }
+
+        private AccountList with(final Account account) {
+            final Account[] grown = size == accounts.length ? Arrays.copyOf(accounts, Math.max(16, size * 2)) : accounts;
+            grown[size] = account;
+            return new AccountList(grown, size + 1);
+        }
+
+        private AccountList without(final Account account) {
+            for (int i = 0; i < size; i++) {
+                if (accounts[i] == account) {
+                    final Account[] remaining = new Account[accounts.length];
+                    System.arraycopy(accounts, 0, remaining, 0, i);
+                    System.arraycopy(accounts, i + 1, remaining, i, size - i - 1);
+                    return new AccountList(remaining, size - 1);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public Account get(final int index) {
+            Objects.checkIndex(index, size);
+            return accounts[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 }
@@ -0,0 +1,158 @@
+package org.etamburini.junitapp.example.domains;
+
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.etamburini.junitapp.example.metrics.BankMetrics;
+
+import java.math.BigDecimal;
+
+public class FixedPointAccount extends Account {
+    public static final int DEFAULT_SCALE = 2;
+
+    private final int scale;
+    private long units;
+
+    public FixedPointAccount(final String person, final BigDecimal amount) {
+        this(person, amount, DEFAULT_SCALE);
+    }
+
+    public FixedPointAccount(final String person, final BigDecimal amount, final int scale) {
+        super(person, null);
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("The scale must be between 0 and 18");
+        }
+        this.scale = scale;
+        this.units = toUnits(amount);
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public long getUnits() {
+        getLock().lock();
+        try {
+            return units;
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    public long toUnits(final BigDecimal amount) {
+        return amount.movePointRight(scale).longValueExact();
+    }
+
+    public BigDecimal toAmount(final long units) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    @Override
+    public BigDecimal getAmount() {
+        return toAmount(getUnits());
+    }
+
+    @Override
+    void assign(final BigDecimal amount) {
+        this.units = toUnits(amount);
+        balanceChanged();
+    }
+
+    @Override
+    void withdraw(final BigDecimal amount) {
+        withdrawUnits(toUnits(amount));
+    }
+
+    @Override
+    void deposit(final BigDecimal amount) {
+        depositUnits(toUnits(amount));
+    }
+
+    @Override
+    void checkDeposit(final BigDecimal amount) {
+        Math.addExact(this.units, toUnits(amount));
+    }
+
+    public void debitUnits(final long amount) {
+        final BankMetrics metrics = metrics();
+        if (metrics == null) {
+            journaledDebitUnits(amount);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            journaledDebitUnits(amount);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(BankMetrics.Operation.DEBIT, start, e);
+            throw e;
+        }
+        metrics.recordSuccess(BankMetrics.Operation.DEBIT, start);
+    }
+
+    private void journaledDebitUnits(final long amount) {
+        getLock().lock();
+        try {
+            withdrawUnits(amount);
+            final Bank bank = getBank();
+            if (bank != null && bank.isJournaled()) {
+                try {
+                    bank.recordDebit(this, toAmount(amount));
+                } catch (RuntimeException e) {
+                    depositUnits(amount);
+                    throw e;
+                }
+            }
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    public void creditUnits(final long amount) {
+        final BankMetrics metrics = metrics();
+        if (metrics == null) {
+            journaledCreditUnits(amount);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            journaledCreditUnits(amount);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(BankMetrics.Operation.CREDIT, start, e);
+            throw e;
+        }
+        metrics.recordSuccess(BankMetrics.Operation.CREDIT, start);
+    }
+
+    private void journaledCreditUnits(final long amount) {
+        getLock().lock();
+        try {
+            depositUnits(amount);
+            final Bank bank = getBank();
+            if (bank != null && bank.isJournaled()) {
+                try {
+                    bank.recordCredit(this, toAmount(amount));
+                } catch (RuntimeException e) {
+                    withdrawUnits(amount);
+                    throw e;
+                }
+            }
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    private void withdrawUnits(final long amount) {
+        final long newUnits = Math.subtractExact(this.units, amount);
+        if (newUnits < 0) {
+            throw new InsufficientMoneyException("Insufficient Money");
+        }
+
+        this.units = newUnits;
+        balanceChanged();
+    }
+
+    private void depositUnits(final long amount) {
+        this.units = Math.addExact(this.units, amount);
+        balanceChanged();
+    }
+}
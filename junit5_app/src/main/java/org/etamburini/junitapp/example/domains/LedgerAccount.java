@@ -0,0 +1,119 @@
+package org.etamburini.junitapp.example.domains;
+
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+
+import java.math.BigDecimal;
+
+// A view on a row of an off-heap ledger, the views of the same row share the balance, the lock and the id
+public final class LedgerAccount extends Account {
+    private final OffHeapLedger ledger;
+    private final int row;
+
+    LedgerAccount(final OffHeapLedger ledger, final int row, final Bank bank) {
+        super(null, null, ledger.idOf(row), ledger.lockOf(row));
+        this.ledger = ledger;
+        this.row = row;
+        setBank(bank);
+    }
+
+    public OffHeapLedger getLedger() {
+        return ledger;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public long getUnits() {
+        getLock().lock();
+        try {
+            return ledger.units(row);
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    @Override
+    public String getPerson() {
+        getLock().lock();
+        try {
+            return ledger.holder(row);
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    @Override
+    public void setPerson(final String person) {
+        getLock().lock();
+        try {
+            checkOpen();
+            final String previousPerson = ledger.holder(row);
+            ledger.rename(row, person);
+            final Bank bank = getBank();
+            if (bank != null) {
+                try {
+                    bank.recordRename(previousPerson, person);
+                } catch (RuntimeException e) {
+                    ledger.rename(row, previousPerson);
+                    throw e;
+                }
+            }
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal getAmount() {
+        return ledger.toAmount(getUnits());
+    }
+
+    @Override
+    void assign(final BigDecimal amount) {
+        checkOpen();
+        ledger.setUnits(row, ledger.toUnits(amount));
+        balanceChanged();
+    }
+
+    @Override
+    void withdraw(final BigDecimal amount) {
+        checkOpen();
+        final long newUnits = Math.subtractExact(ledger.units(row), ledger.toUnits(amount));
+        if (newUnits < 0) {
+            throw new InsufficientMoneyException("Insufficient Money");
+        }
+
+        ledger.setUnits(row, newUnits);
+        balanceChanged();
+    }
+
+    @Override
+    void deposit(final BigDecimal amount) {
+        checkOpen();
+        ledger.setUnits(row, Math.addExact(ledger.units(row), ledger.toUnits(amount)));
+        balanceChanged();
+    }
+
+    @Override
+    void checkDeposit(final BigDecimal amount) {
+        checkOpen();
+        Math.addExact(ledger.units(row), ledger.toUnits(amount));
+    }
+
+    private void checkOpen() {
+        if (!ledger.isOpen(row)) {
+            throw new IllegalStateException("The account is closed");
+        }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof LedgerAccount account && account.ledger == ledger && account.row == row;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getId());
+    }
+}
@@ -0,0 +1,482 @@
+package org.etamburini.junitapp.example.domains;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+// The holders and the scaled balances are kept by column in direct buffers, the accounts are views on a row.
+// The lock order is always a stripe lock before the index lock.
+public final class OffHeapLedger implements AutoCloseable {
+    public static final int DEFAULT_STRIPES = 64;
+
+    // The numbers of the open ledgers, a closed ledger gives its number to the next one
+    private static final BitSet NUMBERS = new BitSet();
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final int MAX_LEDGERS = 1 << 15;
+    private static final int MAX_STRIPES = 1 << 16;
+    private static final int EMPTY = 0;
+    private static final int REMOVED = -1;
+    private static final int CLOSED = -1;
+
+    private final int number;
+    private final int capacity;
+    private final int scale;
+    private final long idBase;
+    private final ReentrantLock[] stripes;
+    private final LongBuffer balances;
+    private final IntBuffer holderOffsets;
+    private final IntBuffer holderLengths;
+    private final ByteBuffer holders;
+    // Open addressing table of row + 1 by holder
+    private final IntBuffer slots;
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private volatile int rows;
+    private int openRows;
+    private int holderBytes;
+    // The holder bytes freed by renames and closed rows by offset, the neighbours are merged
+    private final TreeMap<Integer, Integer> freeHolders = new TreeMap<>();
+    private boolean closed;
+    private volatile Bank bank;
+
+    public OffHeapLedger(final int capacity) {
+        this(capacity, FixedPointAccount.DEFAULT_SCALE, DEFAULT_STRIPES, (int) Math.min(Integer.MAX_VALUE, capacity * 16L));
+    }
+
+    public OffHeapLedger(final int capacity, final int scale, final int stripes, final int holderBytes) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("The capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("The scale must be between 0 and 18");
+        }
+        if (stripes <= 0 || stripes > MAX_STRIPES || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("The stripes must be a power of two up to " + MAX_STRIPES);
+        }
+        if (holderBytes <= 0) {
+            throw new IllegalArgumentException("The holder bytes must be positive");
+        }
+        this.number = acquireNumber();
+        this.capacity = capacity;
+        this.scale = scale;
+        // The ids are ordered by stripe first and are below the ids of the accounts, so the transfers lock in a single order
+        this.idBase = Long.MIN_VALUE + ((long) number << 48);
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.balances = allocate((long) capacity * Long.BYTES).asLongBuffer();
+        this.holderOffsets = allocate((long) capacity * Integer.BYTES).asIntBuffer();
+        this.holderLengths = allocate((long) capacity * Integer.BYTES).asIntBuffer();
+        this.holders = allocate(holderBytes);
+        this.slots = allocate((long) Integer.highestOneBit(capacity * 2 - 1) * 2 * Integer.BYTES).asIntBuffer();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int size() {
+        indexLock.readLock().lock();
+        try {
+            return openRows;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    public long offHeapBytes() {
+        return (long) balances.capacity() * Long.BYTES + (long) holderOffsets.capacity() * Integer.BYTES
+                + (long) holderLengths.capacity() * Integer.BYTES + holders.capacity() + (long) slots.capacity() * Integer.BYTES;
+    }
+
+    // All the stripes are locked during the scans, so the results are consistent with the transfers.
+    // The rows are split between the threads of the common fork-join pool, the closed rows have no balance.
+    public long totalUnits() {
+        lockAll();
+        try {
+            return IntStream.range(0, rows).parallel().mapToLong(balances::get).reduce(0, Math::addExact);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    public BigDecimal totalAmount() {
+        return toAmount(totalUnits());
+    }
+
+    public BalanceSummary summarizeBalances() {
+        lockAll();
+        try {
+            final long[] summary = openRows().collect(() -> new long[]{0, 0, Long.MAX_VALUE, Long.MIN_VALUE},
+                    (partial, row) -> {
+                        final long units = balances.get(row);
+                        partial[0]++;
+                        partial[1] = Math.addExact(partial[1], units);
+                        partial[2] = Math.min(partial[2], units);
+                        partial[3] = Math.max(partial[3], units);
+                    },
+                    (partial, other) -> {
+                        partial[0] += other[0];
+                        partial[1] = Math.addExact(partial[1], other[1]);
+                        partial[2] = Math.min(partial[2], other[2]);
+                        partial[3] = Math.max(partial[3], other[3]);
+                    });
+            if (summary[0] == 0) {
+                return BalanceSummary.EMPTY;
+            }
+            return new BalanceSummary(summary[0], toAmount(summary[1]), toAmount(summary[2]), toAmount(summary[3]));
+        } finally {
+            unlockAll();
+        }
+    }
+
+    public long toUnits(final BigDecimal amount) {
+        return amount.movePointRight(scale).longValueExact();
+    }
+
+    public BigDecimal toAmount(final long units) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    // The accounts of a closed ledger must not be used anymore, the next ledger can get the same ids
+    @Override
+    public void close() {
+        indexLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        synchronized (NUMBERS) {
+            NUMBERS.clear(number);
+        }
+    }
+
+    synchronized void bind(final Bank bank) {
+        if (this.bank != null) {
+            throw new IllegalStateException("The ledger already belongs to the bank " + this.bank.getName());
+        }
+        this.bank = bank;
+    }
+
+    int open(final String person, final BigDecimal amount) {
+        final long units = toUnits(amount);
+        final byte[] holder = person.getBytes(StandardCharsets.UTF_8);
+        indexLock.writeLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The ledger is closed");
+            }
+            if (slotOf(person, holder) >= 0) {
+                throw new IllegalArgumentException("There is already an account for " + person);
+            }
+            final int row = rows;
+            if (row == capacity) {
+                throw new IllegalStateException("The ledger is full");
+            }
+            writeHolder(row, holder);
+            balances.put(row, units);
+            insert(person, row);
+            openRows++;
+            rows = row + 1;
+            return row;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    int find(final String person) {
+        final byte[] holder = person.getBytes(StandardCharsets.UTF_8);
+        indexLock.readLock().lock();
+        try {
+            final int slot = slotOf(person, holder);
+            return slot < 0 ? -1 : slots.get(slot) - 1;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    // Only the open rows are copied, the views are created when the list is read.
+    // A ledger without closed rows needs no copy at all.
+    List<Account> accounts() {
+        indexLock.readLock().lock();
+        try {
+            if (openRows == rows) {
+                return new Views(null, rows);
+            }
+            final int[] open = new int[openRows];
+            int count = 0;
+            for (int row = 0; row < rows; row++) {
+                if (holderLengths.get(row) != CLOSED) {
+                    open[count++] = row;
+                }
+            }
+            return new Views(open, count);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    List<Account> findAccounts(final Predicate<BigDecimal> predicate) {
+        lockAll();
+        try {
+            return openRows().filter(row -> predicate.test(toAmount(balances.get(row))))
+                    .mapToObj(row -> (Account) view(row))
+                    .toList();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    LedgerAccount view(final int row) {
+        return new LedgerAccount(this, row, bank);
+    }
+
+    // The methods below need the stripe lock of the row
+    boolean isOpen(final int row) {
+        return holderLengths.get(row) != CLOSED;
+    }
+
+    String holder(final int row) {
+        final int length = holderLengths.get(row);
+        if (length == CLOSED) {
+            return null;
+        }
+        final byte[] holder = new byte[length];
+        holders.get(holderOffsets.get(row), holder);
+        return new String(holder, StandardCharsets.UTF_8);
+    }
+
+    long units(final int row) {
+        return balances.get(row);
+    }
+
+    void setUnits(final int row, final long units) {
+        balances.put(row, units);
+    }
+
+    // A holder that fits is written over the previous one, otherwise the bytes of the previous holder are freed
+    void rename(final int row, final String person) {
+        final byte[] holder = person.getBytes(StandardCharsets.UTF_8);
+        indexLock.writeLock().lock();
+        try {
+            final String previousPerson = holder(row);
+            if (person.equals(previousPerson)) {
+                return;
+            }
+            if (slotOf(person, holder) >= 0) {
+                throw new IllegalArgumentException("There is already an account for " + person);
+            }
+            final int previousSlot = slotOf(previousPerson, previousPerson.getBytes(StandardCharsets.UTF_8));
+            final int previousOffset = holderOffsets.get(row);
+            final int previousLength = holderLengths.get(row);
+            if (holder.length <= previousLength) {
+                holders.put(previousOffset, holder);
+                holderLengths.put(row, holder.length);
+                freeHolder(previousOffset + holder.length, previousLength - holder.length);
+            } else {
+                writeHolder(row, holder);
+                freeHolder(previousOffset, previousLength);
+            }
+            slots.put(previousSlot, REMOVED);
+            insert(person, row);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    // The row is not reused, its balance leaves the totals and its holder bytes are freed
+    void close(final int row) {
+        indexLock.writeLock().lock();
+        try {
+            final String person = holder(row);
+            if (person == null) {
+                return;
+            }
+            slots.put(slotOf(person, person.getBytes(StandardCharsets.UTF_8)), REMOVED);
+            freeHolder(holderOffsets.get(row), holderLengths.get(row));
+            holderLengths.put(row, CLOSED);
+            balances.put(row, 0);
+            openRows--;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    long idOf(final int row) {
+        return idBase + ((long) stripeOf(row) << 32) + row;
+    }
+
+    ReentrantLock lockOf(final int row) {
+        return stripes[stripeOf(row)];
+    }
+
+    private IntStream openRows() {
+        return IntStream.range(0, rows).parallel().filter(this::isOpen);
+    }
+
+    void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    private int stripeOf(final int row) {
+        return row & (stripes.length - 1);
+    }
+
+    // The freed bytes are only read with the stripe lock of their row, which the renames and the closes hold
+    private void writeHolder(final int row, final byte[] holder) {
+        final int offset = allocateHolder(holder.length);
+        holders.put(offset, holder);
+        holderOffsets.put(row, offset);
+        holderLengths.put(row, holder.length);
+    }
+
+    // The holders are appended while there is room, then the first free range big enough is reused
+    private int allocateHolder(final int length) {
+        if (length <= holders.capacity() - holderBytes) {
+            final int offset = holderBytes;
+            holderBytes += length;
+            return offset;
+        }
+        for (Map.Entry<Integer, Integer> free : freeHolders.entrySet()) {
+            final int offset = free.getKey();
+            final int freeLength = free.getValue();
+            if (freeLength >= length) {
+                freeHolders.remove(offset);
+                if (freeLength > length) {
+                    freeHolders.put(offset + length, freeLength - length);
+                }
+                return offset;
+            }
+        }
+        throw new IllegalStateException("The ledger has no room left for holders");
+    }
+
+    private void freeHolder(final int offset, final int length) {
+        if (length == 0) {
+            return;
+        }
+        int start = offset;
+        int end = offset + length;
+        final Map.Entry<Integer, Integer> before = freeHolders.lowerEntry(start);
+        if (before != null && before.getKey() + before.getValue() == start) {
+            start = before.getKey();
+            freeHolders.remove(start);
+        }
+        final Integer after = freeHolders.remove(end);
+        if (after != null) {
+            end += after;
+        }
+        if (end == holderBytes) {
+            holderBytes = start;
+        } else {
+            freeHolders.put(start, end - start);
+        }
+    }
+
+    private void insert(final String person, final int row) {
+        final int mask = slots.capacity() - 1;
+        int slot = hash(person) & mask;
+        while (slots.get(slot) != EMPTY && slots.get(slot) != REMOVED) {
+            slot = (slot + 1) & mask;
+        }
+        slots.put(slot, row + 1);
+    }
+
+    private int slotOf(final String person, final byte[] holder) {
+        final int mask = slots.capacity() - 1;
+        int slot = hash(person) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            final int value = slots.get(slot);
+            if (value == EMPTY) {
+                return -1;
+            }
+            if (value != REMOVED && matches(value - 1, holder)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean matches(final int row, final byte[] holder) {
+        if (holderLengths.get(row) != holder.length) {
+            return false;
+        }
+        return holders.slice(holderOffsets.get(row), holder.length).equals(ByteBuffer.wrap(holder));
+    }
+
+    private final class Views extends AbstractList<Account> implements RandomAccess {
+        private final int[] rows;
+        private final int size;
+
+        Views(final int[] rows, final int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+
+        @Override
+        public Account get(final int index) {
+            Objects.checkIndex(index, size);
+            return view(rows == null ? index : rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static int acquireNumber() {
+        synchronized (NUMBERS) {
+            final int number = NUMBERS.nextClearBit(0);
+            if (number >= MAX_LEDGERS) {
+                throw new IllegalStateException("Too many open ledgers");
+            }
+            NUMBERS.set(number);
+            return number;
+        }
+    }
+
+    private static int hash(final String person) {
+        final int hash = person.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static ByteBuffer allocate(final long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A column of the ledger is bigger than 2 GB");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+}
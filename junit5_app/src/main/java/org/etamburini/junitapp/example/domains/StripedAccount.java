@@ -0,0 +1,214 @@
+package org.etamburini.junitapp.example.domains;
+
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.etamburini.junitapp.example.metrics.BankMetrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+public class StripedAccount extends Account {
+    private final int scale;
+    private final LongAdder credits = new LongAdder();
+    private volatile long units;
+
+    public StripedAccount(final String person, final BigDecimal amount) {
+        this(person, amount, FixedPointAccount.DEFAULT_SCALE);
+    }
+
+    public StripedAccount(final String person, final BigDecimal amount, final int scale) {
+        super(person, null);
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("The scale must be between 0 and 18");
+        }
+        this.scale = scale;
+        this.units = toUnits(amount);
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public long getUnits() {
+        return units + credits.sum();
+    }
+
+    public long toUnits(final BigDecimal amount) {
+        return amount.movePointRight(scale).longValueExact();
+    }
+
+    @Override
+    boolean isLockFreeCredit() {
+        return true;
+    }
+
+    @Override
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(getUnits(), scale);
+    }
+
+    @Override
+    void assign(final BigDecimal amount) {
+        this.units = Math.subtractExact(toUnits(amount), credits.sum());
+        balanceChanged();
+    }
+
+    @Override
+    void withdraw(final BigDecimal amount) {
+        withdrawUnits(toUnits(amount));
+    }
+
+    @Override
+    void deposit(final BigDecimal amount) {
+        depositUnits(checkedUnits(amount));
+    }
+
+    @Override
+    void checkDeposit(final BigDecimal amount) {
+        checkedUnits(amount);
+    }
+
+    @Override
+    public void credit(final BigDecimal amount) {
+        final BankMetrics metrics = metrics();
+        if (metrics == null) {
+            journaledCredit(amount);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            journaledCredit(amount);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(BankMetrics.Operation.CREDIT, start, e);
+            throw e;
+        }
+        metrics.recordSuccess(BankMetrics.Operation.CREDIT, start);
+    }
+
+    private void journaledCredit(final BigDecimal amount) {
+        final long units = checkedUnits(amount);
+        final Bank bank = getBank();
+        if (bank == null) {
+            depositUnits(units);
+            return;
+        }
+        // The credit takes no account lock, so it waits on a gate of the bank while the bank is frozen or scanned
+        final Lock gate = bank.gate();
+        gate.lock();
+        try {
+            // The credit is journaled before it is visible, so a debit that spends it is always journaled after it.
+            bank.recordCredit(this, amount);
+            depositUnits(units);
+        } finally {
+            gate.unlock();
+        }
+    }
+
+    public void debitUnits(final long amount) {
+        final BankMetrics metrics = metrics();
+        if (metrics == null) {
+            journaledDebitUnits(amount);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            journaledDebitUnits(amount);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(BankMetrics.Operation.DEBIT, start, e);
+            throw e;
+        }
+        metrics.recordSuccess(BankMetrics.Operation.DEBIT, start);
+    }
+
+    private void journaledDebitUnits(final long amount) {
+        getLock().lock();
+        try {
+            withdrawUnits(amount);
+            final Bank bank = getBank();
+            if (bank != null && bank.isJournaled()) {
+                try {
+                    bank.recordDebit(this, BigDecimal.valueOf(amount, scale));
+                } catch (RuntimeException e) {
+                    depositUnits(amount);
+                    throw e;
+                }
+            }
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    public void creditUnits(final long amount) {
+        final BankMetrics metrics = metrics();
+        if (metrics == null) {
+            journaledCreditUnits(amount);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            journaledCreditUnits(amount);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(BankMetrics.Operation.CREDIT, start, e);
+            throw e;
+        }
+        metrics.recordSuccess(BankMetrics.Operation.CREDIT, start);
+    }
+
+    private void journaledCreditUnits(final long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("The amount to credit cannot be negative");
+        }
+        final Bank bank = getBank();
+        if (bank == null) {
+            depositUnits(amount);
+            return;
+        }
+        final Lock gate = bank.gate();
+        gate.lock();
+        try {
+            if (bank.isJournaled()) {
+                bank.recordCredit(this, BigDecimal.valueOf(amount, scale));
+            }
+            depositUnits(amount);
+        } finally {
+            gate.unlock();
+        }
+    }
+
+    private long checkedUnits(final BigDecimal amount) {
+        final long units = toUnits(amount);
+        if (units < 0) {
+            throw new IllegalArgumentException("The amount to credit cannot be negative");
+        }
+
+        return units;
+    }
+
+    private void withdrawUnits(final long amount) {
+        // Concurrent credits only make the balance grow, so checking against the current sum is safe.
+        final long current = Math.addExact(this.units, credits.sum());
+        if (Math.subtractExact(current, amount) < 0) {
+            throw new InsufficientMoneyException("Insufficient Money");
+        }
+
+        this.units = Math.subtractExact(this.units, amount);
+        balanceChanged();
+    }
+
+    private void depositUnits(final long amount) {
+        credits.add(amount);
+
+        final Bank bank = getBank();
+        if (bank != null && bank.hasBalanceIndex()) {
+            getLock().lock();
+            try {
+                balanceChanged();
+            } finally {
+                getLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package org.etamburini.junitapp.example.domains;
+
+import java.math.BigDecimal;
+
+public record Transfer(Account origin, Account destination, BigDecimal amount) {
+}
@@ -0,0 +1,14 @@
+package org.etamburini.junitapp.example.domains;
+
+public record TransferResult(Transfer transfer, Status status, String message) {
+    public enum Status {
+        APPLIED,
+        INVALID,
+        INSUFFICIENT_MONEY,
+        ABORTED
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+}
@@ -0,0 +1,236 @@
+package org.etamburini.junitapp.example.journals;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+import org.etamburini.junitapp.example.domains.FixedPointAccount;
+import org.etamburini.junitapp.example.domains.StripedAccount;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BankSnapshot {
+    public static final int VERSION = 2;
+
+    static final int MAGIC = 0x424B534E;
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private static final byte ACCOUNT = 0;
+    private static final byte FIXED_POINT_ACCOUNT = 1;
+    private static final byte STRIPED_ACCOUNT = 2;
+    private static final int CHUNK_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private BankSnapshot() {
+    }
+
+    public static void write(final Bank bank, final Path path) {
+        write(bank, path, DEFAULT_CHUNK_SIZE);
+    }
+
+    // The accounts are written while the bank is frozen, chunk by chunk, with the sequence of the last journaled record.
+    // The file is written next to the snapshot and moved over it once forced, so a crash keeps the previous snapshot.
+    // The journal is committed up to the sequence before the move, so a restore never skips a record that was lost.
+    static void write(final Bank bank, final Path path, final int chunkSize) {
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            final Written written;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = bank.withBankFrozen(accounts -> writeFrozen(bank, accounts, channel, chunkSize));
+                channel.force(true);
+            }
+            if (written.journal() != null) {
+                written.journal().commit(written.sequence());
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(temporary);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temporary);
+            throw e;
+        }
+    }
+
+    public static Bank read(final Path path) {
+        return load(path).bank();
+    }
+
+    // The bank of the snapshot gets the records journaled after it, then the journal is attached to the bank
+    public static Bank restore(final Path path, final TransferJournal journal) {
+        final Snapshot snapshot = load(path);
+        journal.replay(snapshot.bank(), snapshot.sequence());
+        snapshot.bank().setJournal(journal);
+
+        return snapshot.bank();
+    }
+
+    private static Snapshot load(final Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Short.BYTES);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException(path + " is not a bank snapshot");
+            }
+            final int version = header.getShort(Integer.BYTES);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported bank snapshot version " + version);
+            }
+            final ByteBuffer fields = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+            readFully(channel, fields, header.capacity());
+            final long sequence = fields.getLong(0);
+            final ByteBuffer name = ByteBuffer.allocate(fields.getInt(Long.BYTES));
+            readFully(channel, name, header.capacity() + fields.capacity());
+
+            final List<Chunk> chunks = new ArrayList<>();
+            final ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            long position = header.capacity() + fields.capacity() + name.capacity();
+            while (true) {
+                readFully(channel, chunkHeader.clear(), position);
+                final int count = chunkHeader.getInt(0);
+                final int size = chunkHeader.getInt(Integer.BYTES);
+                if (count == 0) {
+                    break;
+                }
+                chunks.add(new Chunk(count, channel.map(FileChannel.MapMode.READ_ONLY, position + CHUNK_HEADER_SIZE, size)));
+                position += CHUNK_HEADER_SIZE + size;
+            }
+
+            final List<Account[]> decodedChunks = chunks.parallelStream()
+                    .map(BankSnapshot::decode)
+                    .toList();
+            final Bank bank = new Bank(new String(name.array(), StandardCharsets.UTF_8));
+            for (Account[] accounts : decodedChunks) {
+                for (Account account : accounts) {
+                    bank.addAccount(account);
+                }
+            }
+
+            return new Snapshot(bank, sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Runs with the bank frozen, every account is encoded straight into the chunk that goes to the file
+    private static Written writeFrozen(final Bank bank, final List<Account> accounts, final FileChannel channel, final int chunkSize) {
+        final TransferJournal journal = bank.getJournal();
+        final long sequence = journal == null ? 0 : journal.getSequence();
+        try {
+            final byte[] name = bank.getName().getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + name.length);
+            header.putInt(MAGIC).putShort((short) VERSION).putLong(sequence).putInt(name.length).put(name).flip();
+            writeFully(channel, header);
+
+            final ByteBuffer chunk = ByteBuffer.allocateDirect(chunkSize);
+            chunk.position(CHUNK_HEADER_SIZE);
+            int count = 0;
+            for (Account account : accounts) {
+                final String holder = account.getPerson();
+                final byte[] person = holder.getBytes(StandardCharsets.UTF_8);
+                final BigDecimal amount = account.getAmount();
+                final byte[] unscaled = amount.unscaledValue().toByteArray();
+                final int size = Byte.BYTES + Short.BYTES + person.length + Integer.BYTES + Byte.BYTES + unscaled.length;
+                if (person.length > 0xFFFF || unscaled.length > 0xFF || CHUNK_HEADER_SIZE + size > chunkSize) {
+                    throw new IllegalArgumentException("The account of " + holder + " is too big for the snapshot");
+                }
+                if (chunk.remaining() < size) {
+                    flushChunk(channel, chunk, count);
+                    count = 0;
+                }
+                chunk.put(kindOf(account))
+                        .putShort((short) person.length).put(person)
+                        .putInt(amount.scale()).put((byte) unscaled.length).put(unscaled);
+                count++;
+            }
+            if (count > 0) {
+                flushChunk(channel, chunk, count);
+            }
+            flushChunk(channel, chunk, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new Written(journal, sequence);
+    }
+
+    private static Account[] decode(final Chunk chunk) {
+        final ByteBuffer buffer = chunk.buffer();
+        final Account[] accounts = new Account[chunk.count()];
+        for (int i = 0; i < accounts.length; i++) {
+            final byte kind = buffer.get();
+            final byte[] person = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(person);
+            final int scale = buffer.getInt();
+            final byte[] unscaled = new byte[Byte.toUnsignedInt(buffer.get())];
+            buffer.get(unscaled);
+            final BigDecimal amount = new BigDecimal(new BigInteger(unscaled), scale);
+            final String holder = new String(person, StandardCharsets.UTF_8);
+            accounts[i] = switch (kind) {
+                case FIXED_POINT_ACCOUNT -> new FixedPointAccount(holder, amount, scale);
+                case STRIPED_ACCOUNT -> new StripedAccount(holder, amount, scale);
+                default -> new Account(holder, amount);
+            };
+        }
+
+        return accounts;
+    }
+
+    private static byte kindOf(final Account account) {
+        if (account instanceof FixedPointAccount) {
+            return FIXED_POINT_ACCOUNT;
+        }
+        if (account instanceof StripedAccount) {
+            return STRIPED_ACCOUNT;
+        }
+
+        return ACCOUNT;
+    }
+
+    private static void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // The next snapshot truncates the file
+        }
+    }
+
+    private static void flushChunk(final FileChannel channel, final ByteBuffer chunk, final int count) throws IOException {
+        chunk.putInt(0, count).putInt(Integer.BYTES, chunk.position() - CHUNK_HEADER_SIZE).flip();
+        writeFully(channel, chunk);
+        chunk.clear().position(CHUNK_HEADER_SIZE);
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalArgumentException("The bank snapshot is truncated");
+            }
+        }
+    }
+
+    private record Chunk(int count, ByteBuffer buffer) {
+    }
+
+    private record Written(TransferJournal journal, long sequence) {
+    }
+
+    private record Snapshot(Bank bank, long sequence) {
+    }
+}
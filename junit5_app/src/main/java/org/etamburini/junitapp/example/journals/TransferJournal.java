@@ -0,0 +1,460 @@
+package org.etamburini.junitapp.example.journals;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class TransferJournal implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    static final byte OPEN = 1;
+    static final byte CLOSE = 2;
+    static final byte RENAME = 3;
+    static final byte AMOUNT = 4;
+    static final byte DEBIT = 5;
+    static final byte CREDIT = 6;
+    static final byte TRANSFER = 7;
+    static final byte BATCH = 8;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnAppend;
+    private final Object commitLock = new Object();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int position;
+    private int durablePosition;
+    private long sequence;
+    private volatile long durableSequence;
+    private boolean closed;
+
+    public TransferJournal(final Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    public TransferJournal(final Path directory, final int segmentSize, final boolean syncOnAppend) {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("The segment size is too small");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnAppend = syncOnAppend;
+        try {
+            Files.createDirectories(directory);
+            final List<Path> segments = segments();
+            if (segments.isEmpty()) {
+                openSegment(0);
+            } else {
+                // The sequence goes on from the records already in the journal, so it numbers them like a replay
+                for (Path path : segments.subList(0, segments.size() - 1)) {
+                    try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                        sequence += countRecords(readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size()));
+                    }
+                }
+                final Path last = segments.get(segments.size() - 1);
+                openSegment(segmentIndex(last));
+                position = endOf(segment);
+                durablePosition = position;
+                sequence += countRecords(segment);
+                durableSequence = sequence;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getSequence() {
+        synchronized (this) {
+            return sequence;
+        }
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public long appendOpen(final String person, final BigDecimal amount) {
+        return append(OPEN, person, null, amount);
+    }
+
+    public long appendClose(final String person) {
+        return append(CLOSE, person, null, null);
+    }
+
+    public long appendRename(final String previousPerson, final String person) {
+        return append(RENAME, previousPerson, person, null);
+    }
+
+    public long appendAmount(final String person, final BigDecimal amount) {
+        return append(AMOUNT, person, null, amount);
+    }
+
+    public long appendDebit(final String person, final BigDecimal amount) {
+        return append(DEBIT, person, null, amount);
+    }
+
+    public long appendCredit(final String person, final BigDecimal amount) {
+        return append(CREDIT, person, null, amount);
+    }
+
+    public long appendTransfer(final String origin, final String destination, final BigDecimal amount) {
+        return append(TRANSFER, origin, destination, amount);
+    }
+
+    public long appendBatch(final Map<String, BigDecimal> netAmounts) {
+        final List<byte[]> persons = new ArrayList<>(netAmounts.size());
+        final List<byte[]> amounts = new ArrayList<>(netAmounts.size());
+        int size = Integer.BYTES;
+        for (Map.Entry<String, BigDecimal> entry : netAmounts.entrySet()) {
+            persons.add(encodeString(entry.getKey()));
+            amounts.add(encodeDecimal(entry.getValue()));
+            size += stringSize(persons.get(persons.size() - 1)) + decimalSize(amounts.get(amounts.size() - 1));
+        }
+
+        final long recordSequence;
+        synchronized (this) {
+            final int start = reserve(size);
+            int offset = start + HEADER_SIZE;
+            segment.putInt(offset, netAmounts.size());
+            offset += Integer.BYTES;
+            int i = 0;
+            for (BigDecimal amount : netAmounts.values()) {
+                offset = putString(offset, persons.get(i));
+                offset = putDecimal(offset, amount.scale(), amounts.get(i));
+                i++;
+            }
+            recordSequence = publish(start, BATCH, size);
+        }
+
+        return afterAppend(recordSequence);
+    }
+
+    public void sync() {
+        commit(getSequence());
+    }
+
+    public void commit(final long recordSequence) {
+        if (durableSequence >= recordSequence) {
+            return;
+        }
+
+        synchronized (commitLock) {
+            if (durableSequence >= recordSequence) {
+                return;
+            }
+
+            final MappedByteBuffer target;
+            final int from;
+            final int to;
+            final long targetSequence;
+            synchronized (this) {
+                target = segment;
+                from = durablePosition;
+                to = position;
+                targetSequence = sequence;
+                durablePosition = position;
+            }
+            if (to > from) {
+                target.force(from, to - from);
+            }
+            durableSequence = targetSequence;
+        }
+    }
+
+    public void replay(final Bank bank) {
+        replay(bank, 0);
+    }
+
+    // The records up to the sequence are already in the bank, like the ones taken in a snapshot
+    public void replay(final Bank bank, final long afterSequence) {
+        if (bank.isJournaled()) {
+            throw new IllegalStateException("The journal must be replayed before it is attached to the bank");
+        }
+
+        try {
+            long recordSequence = 0;
+            for (Path path : segments()) {
+                try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    final ByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                    int offset = 0;
+                    while (offset + HEADER_SIZE <= buffer.limit()) {
+                        final int size = buffer.getInt(offset);
+                        if (size <= 0) {
+                            break;
+                        }
+                        if (++recordSequence > afterSequence) {
+                            buffer.position(offset + HEADER_SIZE);
+                            apply(bank, buffer.get(offset + Integer.BYTES), buffer);
+                        }
+                        offset += HEADER_SIZE + size;
+                    }
+                }
+            }
+            if (recordSequence < afterSequence) {
+                throw new IllegalStateException("The journal ends at " + recordSequence + " before the sequence " + afterSequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (commitLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                segment.force();
+                durablePosition = position;
+                durableSequence = sequence;
+                closed = true;
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private long append(final byte type, final String first, final String second, final BigDecimal amount) {
+        final byte[] firstBytes = encodeString(first);
+        final byte[] secondBytes = second == null ? null : encodeString(second);
+        final byte[] unscaled = amount == null ? null : encodeDecimal(amount);
+        final int size = stringSize(firstBytes)
+                + (secondBytes == null ? 0 : stringSize(secondBytes))
+                + (unscaled == null ? 0 : decimalSize(unscaled));
+
+        final long recordSequence;
+        synchronized (this) {
+            final int start = reserve(size);
+            int offset = putString(start + HEADER_SIZE, firstBytes);
+            if (secondBytes != null) {
+                offset = putString(offset, secondBytes);
+            }
+            if (unscaled != null) {
+                putDecimal(offset, amount.scale(), unscaled);
+            }
+            recordSequence = publish(start, type, size);
+        }
+
+        return afterAppend(recordSequence);
+    }
+
+    private long afterAppend(final long recordSequence) {
+        if (syncOnAppend) {
+            commit(recordSequence);
+        }
+
+        return recordSequence;
+    }
+
+    private int reserve(final int size) {
+        if (closed) {
+            throw new IllegalStateException("The journal is closed");
+        }
+        if (HEADER_SIZE + size > segmentSize) {
+            throw new IllegalArgumentException("The record does not fit in a journal segment");
+        }
+        if (position + HEADER_SIZE + size > segment.capacity()) {
+            rollSegment();
+        }
+
+        return position;
+    }
+
+    private long publish(final int start, final byte type, final int size) {
+        segment.put(start + Integer.BYTES, type);
+        // The size is written last, a torn record is read as the end of the journal.
+        segment.putInt(start, size);
+        position = start + HEADER_SIZE + size;
+
+        return ++sequence;
+    }
+
+    private void rollSegment() {
+        segment.force();
+        try {
+            channel.close();
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        durablePosition = 0;
+    }
+
+    private void openSegment(final int index) throws IOException {
+        final Path path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final long size = Math.max(channel.size(), segmentSize);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segmentIndex = index;
+        position = 0;
+        durablePosition = 0;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        final String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int segmentIndex(final Path path) {
+        final String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int endOf(final ByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            final int size = buffer.getInt(offset);
+            if (size <= 0) {
+                break;
+            }
+            offset += HEADER_SIZE + size;
+        }
+
+        return offset;
+    }
+
+    private static long countRecords(final ByteBuffer buffer) {
+        long records = 0;
+        int offset = 0;
+        while (offset + HEADER_SIZE <= buffer.limit()) {
+            final int size = buffer.getInt(offset);
+            if (size <= 0) {
+                break;
+            }
+            records++;
+            offset += HEADER_SIZE + size;
+        }
+
+        return records;
+    }
+
+    private static void apply(final Bank bank, final byte type, final ByteBuffer buffer) {
+        switch (type) {
+            case OPEN -> bank.addAccount(new Account(getString(buffer), getDecimal(buffer)));
+            case CLOSE -> bank.removeAccount(find(bank, getString(buffer)));
+            case RENAME -> {
+                final Account account = find(bank, getString(buffer));
+                account.setPerson(getString(buffer));
+            }
+            case AMOUNT -> find(bank, getString(buffer)).setAmount(getDecimal(buffer));
+            case DEBIT -> find(bank, getString(buffer)).debit(getDecimal(buffer));
+            case CREDIT -> find(bank, getString(buffer)).credit(getDecimal(buffer));
+            case TRANSFER -> bank.transfer(find(bank, getString(buffer)), find(bank, getString(buffer)), getDecimal(buffer));
+            case BATCH -> {
+                final int count = buffer.getInt();
+                final List<Account> debited = new ArrayList<>();
+                final List<BigDecimal> debits = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    final Account account = find(bank, getString(buffer));
+                    final BigDecimal amount = getDecimal(buffer);
+                    if (amount.signum() > 0) {
+                        account.credit(amount);
+                    } else if (amount.signum() < 0) {
+                        debited.add(account);
+                        debits.add(amount.negate());
+                    }
+                }
+                for (int i = 0; i < debited.size(); i++) {
+                    debited.get(i).debit(debits.get(i));
+                }
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private static Account find(final Bank bank, final String person) {
+        return bank.findAccount(person)
+                .orElseThrow(() -> new IllegalStateException("The journal references an unknown account " + person));
+    }
+
+    private static byte[] encodeString(final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("The text is too long to be journaled");
+        }
+
+        return bytes;
+    }
+
+    private static byte[] encodeDecimal(final BigDecimal value) {
+        final byte[] unscaled = value.unscaledValue().toByteArray();
+        if (unscaled.length > 0xFF) {
+            throw new IllegalArgumentException("The amount is too big to be journaled");
+        }
+
+        return unscaled;
+    }
+
+    private static int stringSize(final byte[] bytes) {
+        return Short.BYTES + bytes.length;
+    }
+
+    private static int decimalSize(final byte[] unscaled) {
+        return Integer.BYTES + Byte.BYTES + unscaled.length;
+    }
+
+    private int putString(final int offset, final byte[] bytes) {
+        segment.putShort(offset, (short) bytes.length);
+        segment.put(offset + Short.BYTES, bytes);
+
+        return offset + stringSize(bytes);
+    }
+
+    private int putDecimal(final int offset, final int scale, final byte[] unscaled) {
+        segment.putInt(offset, scale);
+        segment.put(offset + Integer.BYTES, (byte) unscaled.length);
+        segment.put(offset + Integer.BYTES + Byte.BYTES, unscaled);
+
+        return offset + decimalSize(unscaled);
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static BigDecimal getDecimal(final ByteBuffer buffer) {
+        final int scale = buffer.getInt();
+        final byte[] unscaled = new byte[Byte.toUnsignedInt(buffer.get())];
+        buffer.get(unscaled);
+
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
@@ -0,0 +1,126 @@
+package org.etamburini.junitapp.example.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BankMetrics {
+    public enum Operation {
+        TRANSFER,
+        DEBIT,
+        CREDIT
+    }
+
+    // The operations record in the active set, a reset swaps in the spare set and reads the retired one once
+    // its writers are done, so a recording lands in exactly one snapshot
+    private final AtomicReference<Recorders> active = new AtomicReference<>(new Recorders());
+    private Recorders spare = new Recorders();
+
+    public void recordSuccess(final Operation operation, final long startNanos) {
+        final long nanos = System.nanoTime() - startNanos;
+        final Recorders recorders = enter();
+        try {
+            recorders.operations.get(operation).latencies.record(nanos);
+        } finally {
+            recorders.finished.increment();
+        }
+    }
+
+    public void recordFailure(final Operation operation, final long startNanos, final Throwable cause) {
+        final long nanos = System.nanoTime() - startNanos;
+        final Recorders recorders = enter();
+        try {
+            final OperationMetrics metrics = recorders.operations.get(operation);
+            metrics.latencies.record(nanos);
+            metrics.failures.computeIfAbsent(cause.getClass().getSimpleName(), name -> new LongAdder()).increment();
+        } finally {
+            recorders.finished.increment();
+        }
+    }
+
+    public synchronized MetricsSnapshot snapshot() {
+        return active.get().snapshot();
+    }
+
+    public synchronized MetricsSnapshot snapshotAndReset() {
+        final Recorders retired = swap();
+        final MetricsSnapshot snapshot = retired.snapshot();
+        retired.reset();
+
+        return snapshot;
+    }
+
+    public synchronized void reset() {
+        swap().reset();
+    }
+
+    // The writer counts itself in the set before it records, a writer that finds the set retired backs out and
+    // records in the new one. The retired set is read once every writer counted in it is finished.
+    private Recorders enter() {
+        while (true) {
+            final Recorders recorders = active.get();
+            recorders.started.increment();
+            if (active.get() == recorders) {
+                return recorders;
+            }
+            recorders.finished.increment();
+        }
+    }
+
+    private Recorders swap() {
+        final Recorders retired = active.getAndSet(spare);
+        // The finished count is read first, so the counts are equal only when no writer is left in the set
+        while (retired.finished.sum() != retired.started.sum()) {
+            Thread.onSpinWait();
+        }
+        spare = retired;
+
+        return retired;
+    }
+
+    private static class Recorders {
+        private final Map<Operation, OperationMetrics> operations = new EnumMap<>(Operation.class);
+        private final LongAdder started = new LongAdder();
+        private final LongAdder finished = new LongAdder();
+
+        Recorders() {
+            for (Operation operation : Operation.values()) {
+                operations.put(operation, new OperationMetrics());
+            }
+        }
+
+        MetricsSnapshot snapshot() {
+            final Map<Operation, MetricsSnapshot.OperationSnapshot> snapshots = new EnumMap<>(Operation.class);
+            operations.forEach((operation, metrics) -> snapshots.put(operation, metrics.snapshot()));
+
+            return new MetricsSnapshot(snapshots);
+        }
+
+        void reset() {
+            operations.values().forEach(OperationMetrics::reset);
+        }
+    }
+
+    private static class OperationMetrics {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+        MetricsSnapshot.OperationSnapshot snapshot() {
+            final Map<String, Long> failureCounts = new TreeMap<>();
+            failures.forEach((cause, counter) -> failureCounts.put(cause, counter.sum()));
+            final long failed = failureCounts.values().stream().mapToLong(Long::longValue).sum();
+
+            return new MetricsSnapshot.OperationSnapshot(latencies.getCount(), failed, Map.copyOf(failureCounts),
+                    latencies.getMean(), latencies.getPercentile(50), latencies.getPercentile(90),
+                    latencies.getPercentile(99), latencies.getPercentile(99.9), latencies.getMax());
+        }
+
+        void reset() {
+            latencies.reset();
+            failures.values().forEach(LongAdder::reset);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.etamburini.junitapp.example.metrics;
+
+import java.util.Map;
+
+public record MetricsSnapshot(Map<BankMetrics.Operation, OperationSnapshot> operations) {
+    public record OperationSnapshot(long count, long failures, Map<String, Long> failuresByCause, double meanNanos,
+                                    long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        public double getFailureRate() {
+            return count == 0 ? 0 : (double) failures / count;
+        }
+    }
+
+    public OperationSnapshot get(final BankMetrics.Operation operation) {
+        return operations.get(operation);
+    }
+}
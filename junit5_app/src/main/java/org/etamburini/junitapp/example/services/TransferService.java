@@ -0,0 +1,152 @@
+package org.etamburini.junitapp.example.services;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TransferService implements AutoCloseable {
+    public static final int DEFAULT_MAILBOX_CAPACITY = 1024;
+    public static final Duration DEFAULT_OFFER_TIMEOUT = Duration.ofSeconds(1);
+
+    private final Bank bank;
+    private final int mailboxCapacity;
+    private final long offerTimeoutNanos;
+    private final ExecutorService executor;
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public TransferService(final Bank bank) {
+        this(bank, DEFAULT_MAILBOX_CAPACITY, DEFAULT_OFFER_TIMEOUT);
+    }
+
+    public TransferService(final Bank bank, final int mailboxCapacity, final Duration offerTimeout) {
+        this.bank = bank;
+        this.mailboxCapacity = mailboxCapacity;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    public Bank getBank() {
+        return bank;
+    }
+
+    // The transfer runs in the mailbox of the origin through the bank, so it is journaled and locked like any other transfer
+    public CompletableFuture<Void> transfer(final Account origin, final Account destination, final BigDecimal amount) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final Mailbox originMailbox = reserveMailbox(origin);
+        try {
+            originMailbox.offer(() -> {
+                try {
+                    bank.transfer(origin, destination, amount);
+                    result.complete(null);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (InterruptedException e) {
+            originMailbox.release();
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        } catch (RejectedExecutionException e) {
+            originMailbox.release();
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+
+    public CompletableFuture<Void> transfer(final String origin, final String destination, final BigDecimal amount) {
+        final Account originAccount = bank.findAccount(origin).orElse(null);
+        final Account destinationAccount = bank.findAccount(destination).orElse(null);
+        if (originAccount == null || destinationAccount == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown account " + (originAccount == null ? origin : destination)));
+        }
+
+        return transfer(originAccount, destinationAccount, amount);
+    }
+
+    public int pendingRequests(final Account account) {
+        final Mailbox mailbox = mailboxes.get(account.getId());
+        return mailbox == null ? 0 : mailbox.requests.size();
+    }
+
+    int mailboxCount() {
+        return mailboxes.size();
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    // The mailbox is reserved under the lock of its entry, so it is not evicted between the lookup and the offer
+    private Mailbox reserveMailbox(final Account account) {
+        return mailboxes.compute(account.getId(), (id, mailbox) -> {
+            final Mailbox reserved = mailbox == null ? new Mailbox(id) : mailbox;
+            reserved.reservations.incrementAndGet();
+            return reserved;
+        });
+    }
+
+    private class Mailbox {
+        private final long id;
+        private final BlockingQueue<Runnable> requests = new ArrayBlockingQueue<>(mailboxCapacity);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // The requests offered or queued and not run yet, an idle mailbox leaves the map
+        private final AtomicInteger reservations = new AtomicInteger();
+
+        Mailbox(final long id) {
+            this.id = id;
+        }
+
+        void offer(final Runnable task) throws InterruptedException {
+            if (!requests.offer(task, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("The mailbox of the account is full");
+            }
+            schedule();
+        }
+
+        void release() {
+            if (reservations.decrementAndGet() == 0) {
+                mailboxes.computeIfPresent(id, (key, mailbox) -> mailbox == this && reservations.get() == 0 ? null : mailbox);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                while ((task = requests.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // Every task completes its own future, a failure must not stop the mailbox.
+                    } finally {
+                        release();
+                    }
+                }
+                scheduled.set(false);
+                if (requests.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assumptions.*;
@@ -136,6 +137,116 @@ class AccountTest {
         }
     }
 
+    @Nested
+    @Tag("Account")
+    @DisplayName("Fixed point account test")
+    class FixedPointAccountTests {
+        @Test
+        void testFixedPointAmount() {
+            final FixedPointAccount fixedPointAccount = new FixedPointAccount("Testing", new BigDecimal("1000.12345"), 5);
+
+            assertEquals(100012345L, fixedPointAccount.getUnits());
+            assertEquals("1000.12345", fixedPointAccount.getAmount().toPlainString());
+            assertEquals(account, fixedPointAccount);
+        }
+
+        @Test
+        void testFixedPointDebitAndCredit() {
+            final FixedPointAccount fixedPointAccount = new FixedPointAccount("Testing", new BigDecimal("1000.12345"), 5);
+
+            fixedPointAccount.debit(new BigDecimal(100));
+            assertEquals("900.12345", fixedPointAccount.getAmount().toPlainString());
+
+            fixedPointAccount.creditUnits(20000000L);
+            assertEquals("1100.12345", fixedPointAccount.getAmount().toPlainString());
+        }
+
+        @Test
+        void testFixedPointInsufficientMoneyException() {
+            final FixedPointAccount fixedPointAccount = new FixedPointAccount("Testing", new BigDecimal("1000.12"));
+
+            final Exception exception = assertThrows(InsufficientMoneyException.class, () -> fixedPointAccount.debit(new BigDecimal("1500")));
+
+            assertEquals("Insufficient Money", exception.getMessage());
+            assertEquals("1000.12", fixedPointAccount.getAmount().toPlainString());
+        }
+
+        @Test
+        void testFixedPointPrecisionAndOverflow() {
+            final FixedPointAccount fixedPointAccount = new FixedPointAccount("Testing", new BigDecimal("1000.12"));
+
+            assertThrows(ArithmeticException.class, () -> fixedPointAccount.credit(new BigDecimal("0.001")));
+            assertThrows(ArithmeticException.class, () -> fixedPointAccount.creditUnits(Long.MAX_VALUE));
+            assertEquals("1000.12", fixedPointAccount.getAmount().toPlainString());
+        }
+
+        @Test
+        void testFixedPointTransfer() {
+            final FixedPointAccount account1 = new FixedPointAccount("Testing 1", new BigDecimal("2500"));
+            final Account account2 = new Account("Testing 2", new BigDecimal("1500.01"));
+
+            final Bank bank = new Bank("Testing Bank");
+            bank.transfer(account1, account2, new BigDecimal("500"));
+
+            assertEquals("2000.00", account1.getAmount().toPlainString());
+            assertEquals("2000.01", account2.getAmount().toPlainString());
+        }
+    }
+
+    @Nested
+    @Tag("Account")
+    @DisplayName("Striped account test")
+    class StripedAccountTests {
+        @Test
+        void testStripedDebitAndCredit() {
+            final StripedAccount stripedAccount = new StripedAccount("Testing", new BigDecimal("1000.12345"), 5);
+
+            stripedAccount.credit(new BigDecimal(100));
+            stripedAccount.debit(new BigDecimal(200));
+
+            assertEquals("900.12345", stripedAccount.getAmount().toPlainString());
+            assertThrows(InsufficientMoneyException.class, () -> stripedAccount.debit(new BigDecimal("1500")));
+            assertThrows(IllegalArgumentException.class, () -> stripedAccount.credit(new BigDecimal("-1")));
+            assertEquals("900.12345", stripedAccount.getAmount().toPlainString());
+        }
+
+        @Test
+        @Tag("Concurrency")
+        void testStripedConcurrentCreditsAndDebits() throws InterruptedException {
+            final StripedAccount stripedAccount = new StripedAccount("Testing", BigDecimal.ZERO);
+            final Account origin = new Account("Testing origin", new BigDecimal("40000"));
+            final Bank bank = new Bank("Testing Bank");
+            final AtomicLong debited = new AtomicLong();
+
+            final Thread[] threads = new Thread[8];
+            for (int i = 0; i < threads.length; i++) {
+                final boolean crediting = i % 2 == 0;
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        if (crediting) {
+                            bank.transfer(origin, stripedAccount, BigDecimal.ONE);
+                        } else {
+                            try {
+                                stripedAccount.debitUnits(150);
+                                debited.addAndGet(150);
+                            } catch (InsufficientMoneyException e) {
+                                assertTrue(stripedAccount.getUnits() >= 0);
+                            }
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals("0", origin.getAmount().toPlainString());
+            assertEquals(4_000_000L - debited.get(), stripedAccount.getUnits());
+            assertTrue(stripedAccount.getUnits() >= 0);
+        }
+    }
+
     @Nested
     @Tag("Account")
     class RelationTests {
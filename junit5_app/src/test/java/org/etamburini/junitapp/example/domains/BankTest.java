@@ -0,0 +1,664 @@
+package org.etamburini.junitapp.example.domains;
+
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.etamburini.junitapp.example.journals.TransferJournal;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankTest {
+    private Bank bank;
+
+    @BeforeEach
+    void initMethodTest() {
+        this.bank = new Bank("Testing Bank");
+    }
+
+    private BigDecimal totalAmount() {
+        return bank.getAccounts().stream()
+                .map(Account::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Nested
+    @Tag("Bank")
+    @Tag("Concurrency")
+    class ConcurrentTransferTests {
+        @Test
+        @DisplayName("Testing that concurrent transfers conserve the total money")
+        void testConcurrentTransfersConserveMoney() {
+            final int accounts = 16;
+            final int threads = 8;
+            final int transfersPerThread = 20_000;
+            for (int i = 0; i < accounts; i++) {
+                bank.addAccount(new Account("Testing " + i, new BigDecimal("1000.00")));
+            }
+            final BigDecimal waitedTotal = totalAmount();
+            final AtomicLong rejected = new AtomicLong();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                final ExecutorService executor = Executors.newFixedThreadPool(threads);
+                try {
+                    final List<Future<?>> futures = new ArrayList<>();
+                    for (int t = 0; t < threads; t++) {
+                        futures.add(executor.submit(() -> {
+                            final ThreadLocalRandom random = ThreadLocalRandom.current();
+                            for (int i = 0; i < transfersPerThread; i++) {
+                                final Account origin = bank.getAccounts().get(random.nextInt(accounts));
+                                final Account destination = bank.getAccounts().get(random.nextInt(accounts));
+                                try {
+                                    bank.transfer(origin, destination, new BigDecimal(random.nextInt(1, 200) + ".25"));
+                                } catch (InsufficientMoneyException e) {
+                                    rejected.incrementAndGet();
+                                }
+                            }
+                        }));
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                } finally {
+                    executor.shutdownNow();
+                }
+            }, () -> "The transfers did not finish, there could be a deadlock");
+
+            assertEquals(0, waitedTotal.compareTo(totalAmount()), () -> "The total money was not conserved, rejected transfers: " + rejected.get());
+            assertTrue(bank.getAccounts().stream().allMatch(account -> account.getAmount().signum() >= 0));
+        }
+
+        @Test
+        @DisplayName("Testing opposite transfers between the same accounts do not deadlock")
+        void testOppositeTransfersDoNotDeadlock() {
+            final Account account1 = new Account("Testing 1", new BigDecimal("1000000"));
+            final Account account2 = new Account("Testing 2", new BigDecimal("1000000"));
+            bank.addAccount(account1);
+            bank.addAccount(account2);
+
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                final Thread forward = new Thread(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        bank.transfer(account1, account2, BigDecimal.ONE);
+                    }
+                });
+                final Thread backward = new Thread(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        bank.transfer(account2, account1, BigDecimal.ONE);
+                    }
+                });
+                forward.start();
+                backward.start();
+                forward.join();
+                backward.join();
+            });
+
+            assertEquals("1000000", account1.getAmount().toPlainString());
+            assertEquals("1000000", account2.getAmount().toPlainString());
+        }
+
+        @Test
+        void testTransferToSameAccount() {
+            final Account account = new Account("Testing", new BigDecimal("100"));
+            bank.addAccount(account);
+
+            bank.transfer(account, account, new BigDecimal("40"));
+
+            assertEquals("100", account.getAmount().toPlainString());
+            assertThrows(InsufficientMoneyException.class, () -> bank.transfer(account, account, new BigDecimal("150")));
+        }
+    }
+
+    @Nested
+    @Tag("Bank")
+    class BatchTransferTests {
+        private Account account1;
+        private Account account2;
+        private Account account3;
+
+        @BeforeEach
+        void initAccounts() {
+            account1 = new Account("Testing 1", new BigDecimal("2500"));
+            account2 = new Account("Testing 2", new BigDecimal("1500.01"));
+            account3 = new Account("Testing 3", new BigDecimal("100"));
+            bank.addAccount(account1);
+            bank.addAccount(account2);
+            bank.addAccount(account3);
+        }
+
+        @Test
+        void testBatchTransferApplied() {
+            final List<TransferResult> results = bank.transfer(List.of(
+                    new Transfer(account1, account2, new BigDecimal("500")),
+                    new Transfer(account2, account3, new BigDecimal("1000")),
+                    new Transfer(account3, account1, new BigDecimal("1050"))
+            ));
+
+            assertEquals(3, results.size());
+            assertTrue(results.stream().allMatch(TransferResult::isApplied));
+            assertEquals("3050", account1.getAmount().toPlainString());
+            assertEquals("1000.01", account2.getAmount().toPlainString());
+            assertEquals("50", account3.getAmount().toPlainString());
+        }
+
+        @Test
+        void testBatchTransferIsNettedPerAccount() {
+            final List<Transfer> transfers = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                transfers.add(new Transfer(account3, account1, new BigDecimal("1")));
+                transfers.add(new Transfer(account1, account3, new BigDecimal("1")));
+            }
+
+            final List<TransferResult> results = bank.transfer(transfers);
+
+            assertTrue(results.stream().allMatch(TransferResult::isApplied), () -> "The batch must be validated with the net amounts");
+            assertEquals("2500", account1.getAmount().toPlainString());
+            assertEquals("100", account3.getAmount().toPlainString());
+        }
+
+        @Test
+        void testBatchTransferIsAllOrNothing() {
+            final List<TransferResult> results = bank.transfer(List.of(
+                    new Transfer(account1, account2, new BigDecimal("500")),
+                    new Transfer(account3, account1, new BigDecimal("150"))
+            ));
+
+            assertAll(
+                    () -> assertEquals(TransferResult.Status.ABORTED, results.get(0).status()),
+                    () -> assertEquals(TransferResult.Status.INSUFFICIENT_MONEY, results.get(1).status()),
+                    () -> assertEquals("Insufficient Money", results.get(1).message()),
+                    () -> assertEquals("2500", account1.getAmount().toPlainString()),
+                    () -> assertEquals("1500.01", account2.getAmount().toPlainString()),
+                    () -> assertEquals("100", account3.getAmount().toPlainString())
+            );
+        }
+
+        @Test
+        void testFailedBatchTransferIsNotJournaled(@TempDir final Path directory) {
+            final Account failing = new Account("Testing 4", new BigDecimal("10")) {
+                @Override
+                void deposit(final BigDecimal amount) {
+                    throw new ArithmeticException("Overflow");
+                }
+            };
+            bank.addAccount(failing);
+            try (TransferJournal journal = new TransferJournal(directory)) {
+                bank.setJournal(journal);
+                final long sequence = journal.getSequence();
+
+                final List<TransferResult> results = bank.transfer(List.of(new Transfer(account1, failing, new BigDecimal("500"))));
+
+                assertEquals(TransferResult.Status.INVALID, results.get(0).status());
+                assertEquals("2500", account1.getAmount().toPlainString());
+                assertEquals("10", failing.getAmount().toPlainString());
+                assertEquals(sequence, journal.getSequence());
+            } finally {
+                bank.setJournal(null);
+            }
+        }
+
+        @Test
+        void testBatchTransferWithInvalidInstruction() {
+            final List<TransferResult> results = bank.transfer(List.of(
+                    new Transfer(account1, account2, new BigDecimal("500")),
+                    new Transfer(account1, null, new BigDecimal("1")),
+                    new Transfer(account1, account2, new BigDecimal("-1"))
+            ));
+
+            assertEquals(TransferResult.Status.ABORTED, results.get(0).status());
+            assertEquals(TransferResult.Status.INVALID, results.get(1).status());
+            assertEquals(TransferResult.Status.INVALID, results.get(2).status());
+            assertEquals("2500", account1.getAmount().toPlainString());
+        }
+    }
+
+    @Nested
+    @Tag("Bank")
+    class IndexTests {
+        @Test
+        void testFindAccountByPerson() {
+            final Account account1 = new Account("Testing 1", new BigDecimal("2500"));
+            final Account account2 = new Account("Testing 2", new BigDecimal("1500.01"));
+            bank.addAccount(account1);
+            bank.addAccount(account2);
+
+            assertSame(account1, bank.findAccount("Testing 1").orElseThrow());
+            assertThrows(IllegalArgumentException.class, () -> bank.addAccount(new Account("Testing 1", BigDecimal.ONE)));
+            assertThrows(UnsupportedOperationException.class, () -> bank.getAccounts().add(account1));
+
+            account2.setPerson("Testing 3");
+            assertTrue(bank.findAccount("Testing 2").isEmpty());
+            assertSame(account2, bank.findAccount("Testing 3").orElseThrow());
+            assertThrows(IllegalArgumentException.class, () -> account2.setPerson("Testing 1"));
+            assertEquals("Testing 3", account2.getPerson());
+
+            assertTrue(bank.removeAccount(account1));
+            assertFalse(bank.removeAccount(account1));
+            assertTrue(bank.findAccount("Testing 1").isEmpty());
+            assertNull(account1.getBank());
+            assertEquals(1, bank.getAccounts().size());
+        }
+
+        @Test
+        void testFindAccountAfterTransfer() {
+            final Account account1 = new Account("Testing 1", new BigDecimal("2500"));
+            final Account account2 = new Account("Testing 2", new BigDecimal("1500.01"));
+            bank.addAccount(account1);
+            bank.addAccount(account2);
+            bank.transfer(account1, account2, new BigDecimal("500"));
+
+            assertSame(account1, bank.findAccount("Testing 1").orElseThrow());
+            assertSame(account2, bank.findAccount("Testing 2").orElseThrow());
+            assertTrue(bank.findAccount("Testing 3").isEmpty());
+        }
+
+        @Test
+        void testRemoveAccountKeepsTheOrder() {
+            final List<Account> accounts = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                accounts.add(new Account("Testing " + i, new BigDecimal("10")));
+                bank.addAccount(accounts.get(i));
+            }
+
+            assertTrue(bank.removeAccount(accounts.get(2)));
+            assertFalse(bank.removeAccount(new Account("Testing 3", new BigDecimal("10"))));
+
+            assertEquals(List.of(accounts.get(0), accounts.get(1), accounts.get(3), accounts.get(4)), bank.getAccounts());
+        }
+
+        @Test
+        void testGetAccountsIsAPublishedList() {
+            final Account account1 = new Account("Testing 1", new BigDecimal("10"));
+            final Account account2 = new Account("Testing 2", new BigDecimal("10"));
+            final Bank otherBank = new Bank("Other Bank");
+            bank.addAccount(account1);
+            otherBank.addAccount(account2);
+
+            final List<Account> accounts = bank.getAccounts();
+            assertSame(accounts, bank.getAccounts(), () -> "The accounts must not be copied while they do not change");
+            bank.addAccount(new Account("Testing 3", new BigDecimal("10")));
+            bank.removeAccount(account1);
+
+            assertEquals(List.of(account1), accounts, () -> "A list handed out must not change with the bank");
+            assertEquals(List.of("Testing 3"), bank.getAccounts().stream().map(Account::getPerson).toList());
+            assertEquals(List.of(account2), otherBank.getAccounts());
+            assertInstanceOf(RandomAccess.class, bank.getAccounts());
+        }
+
+        @Test
+        @Tag("Concurrency")
+        void testGetAccountsWhileAccountsAreAdded() {
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                final ExecutorService executor = Executors.newSingleThreadExecutor();
+                try {
+                    final Future<?> adds = executor.submit(() -> {
+                        for (int i = 0; i < 20_000; i++) {
+                            bank.addAccount(new Account("Testing " + i, BigDecimal.ONE));
+                        }
+                    });
+                    while (!adds.isDone()) {
+                        final List<Account> accounts = bank.getAccounts();
+                        assertEquals(accounts.size(), accounts.stream().map(Account::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add).intValue());
+                    }
+                    adds.get();
+                } finally {
+                    executor.shutdownNow();
+                }
+            });
+            assertEquals(20_000, bank.getAccounts().size());
+        }
+
+        @Test
+        void testFindAccountsByAmountBetween() {
+            final Bank indexedBank = new Bank("Indexed Bank", true);
+            final Account account1 = new Account("Testing 1", new BigDecimal("2500"));
+            final Account account2 = new Account("Testing 2", new BigDecimal("1500.01"));
+            final Account account3 = new FixedPointAccount("Testing 3", new BigDecimal("100"));
+            indexedBank.addAccount(account1);
+            indexedBank.addAccount(account2);
+            indexedBank.addAccount(account3);
+
+            assertEquals(List.of(account3, account2), indexedBank.findAccountsByAmountBetween(new BigDecimal("100.00"), new BigDecimal("2000")));
+
+            indexedBank.transfer(account1, account3, new BigDecimal("2000"));
+
+            assertEquals(List.of(account1, account2), indexedBank.findAccountsByAmountBetween(BigDecimal.ZERO, new BigDecimal("2000")));
+            assertEquals(List.of(account3), indexedBank.findAccountsByAmountBetween(new BigDecimal("2100"), new BigDecimal("2100")));
+
+            indexedBank.removeAccount(account2);
+            assertEquals(List.of(account1), indexedBank.findAccountsByAmountBetween(BigDecimal.ZERO, new BigDecimal("2000")));
+            assertThrows(IllegalStateException.class, () -> bank.findAccountsByAmountBetween(BigDecimal.ZERO, BigDecimal.TEN));
+        }
+    }
+
+    @Nested
+    @Tag("Bank")
+    @DisplayName("Off-heap ledger test")
+    class LedgerTests {
+        private Bank ledgerBank;
+
+        @BeforeEach
+        void initLedgerBank() {
+            ledgerBank = new Bank("Ledger Bank", new OffHeapLedger(64, 2, 4, 1024));
+        }
+
+        @AfterEach
+        void closeLedger() {
+            ledgerBank.getLedger().close();
+        }
+
+        @Test
+        @DisplayName("Testing the ledger views behave like accounts")
+        void testLedgerAccounts() {
+            ledgerBank.addAccount(new Account("Testing 1", new BigDecimal("2500")));
+            ledgerBank.addAccount(new Account("Testing 2", new BigDecimal("1500.01")));
+            final Account account1 = ledgerBank.findAccount("Testing 1").orElseThrow();
+            final Account account2 = ledgerBank.findAccount("Testing 2").orElseThrow();
+
+            account1.debit(new BigDecimal("100.50"));
+            account2.credit(new BigDecimal("0.99"));
+            ledgerBank.transfer(account1, account2, new BigDecimal("399.50"));
+
+            assertEquals(new BigDecimal("2000.00"), ledgerBank.findAccount("Testing 1").orElseThrow().getAmount());
+            assertEquals(new BigDecimal("1900.50"), account2.getAmount());
+            assertEquals(account1, ledgerBank.findAccount("Testing 1").orElseThrow());
+            assertEquals(account1.getId(), ledgerBank.findAccount("Testing 1").orElseThrow().getId());
+            assertSame(ledgerBank, account1.getBank());
+            assertThrows(InsufficientMoneyException.class, () -> account1.debit(new BigDecimal("2000.01")));
+            assertThrows(InsufficientMoneyException.class, () -> ledgerBank.transfer(account2, account1, new BigDecimal("5000")));
+            assertEquals(new BigDecimal("2000.00"), account1.getAmount());
+            assertEquals(new BigDecimal("3900.50"), ledgerBank.getLedger().totalAmount());
+            assertThrows(IllegalArgumentException.class, () -> ledgerBank.addAccount(new Account("Testing 1", BigDecimal.ONE)));
+            assertThrows(ArithmeticException.class, () -> account1.credit(new BigDecimal("0.001")));
+        }
+
+        @Test
+        @DisplayName("Testing renames and removals of ledger accounts")
+        void testRenameAndRemove() {
+            ledgerBank.addAccount(new Account("Testing 1", new BigDecimal("10")));
+            ledgerBank.addAccount(new Account("Testing 2", new BigDecimal("20")));
+            final Account account1 = ledgerBank.findAccount("Testing 1").orElseThrow();
+
+            account1.setPerson("Testing 3");
+            assertTrue(ledgerBank.findAccount("Testing 1").isEmpty());
+            assertEquals("Testing 3", ledgerBank.findAccount("Testing 3").orElseThrow().getPerson());
+            assertThrows(IllegalArgumentException.class, () -> account1.setPerson("Testing 2"));
+            assertEquals("Testing 3", account1.getPerson());
+
+            assertTrue(ledgerBank.removeAccount(account1));
+            assertFalse(ledgerBank.removeAccount(account1));
+            assertTrue(ledgerBank.findAccount("Testing 3").isEmpty());
+            assertThrows(IllegalStateException.class, () -> account1.credit(BigDecimal.ONE));
+            assertFalse(ledgerBank.removeAccount(new Account("Testing 2", BigDecimal.ONE)));
+            assertEquals(List.of("Testing 2"), ledgerBank.getAccounts().stream().map(Account::getPerson).toList());
+            assertEquals(1, ledgerBank.getLedger().size());
+            assertEquals(new BigDecimal("20.00"), ledgerBank.getLedger().totalAmount());
+
+            ledgerBank.addAccount(new Account("Testing 1", new BigDecimal("5")));
+            assertEquals(new BigDecimal("5.00"), ledgerBank.findAccount("Testing 1").orElseThrow().getAmount());
+        }
+
+        @Test
+        @DisplayName("Testing the accounts of a ledger are views of its open rows")
+        void testGetLedgerAccounts() {
+            for (int i = 1; i <= 3; i++) {
+                ledgerBank.addAccount(new Account("Testing " + i, BigDecimal.valueOf(i)));
+            }
+            final List<Account> accounts = ledgerBank.getAccounts();
+            ledgerBank.removeAccount(ledgerBank.findAccount("Testing 2").orElseThrow());
+            final List<Account> openAccounts = ledgerBank.getAccounts();
+
+            assertEquals(3, accounts.size());
+            assertEquals(List.of("Testing 1", "Testing 3"), openAccounts.stream().map(Account::getPerson).toList());
+            assertEquals(ledgerBank.findAccount("Testing 3").orElseThrow(), openAccounts.get(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> openAccounts.get(2));
+            assertThrows(UnsupportedOperationException.class, () -> openAccounts.add(new Account("Testing 4", BigDecimal.ONE)));
+        }
+
+        @Test
+        @DisplayName("Testing a ledger account that cannot be journaled is closed")
+        void testLedgerAccountNotJournaled(@TempDir final Path directory) {
+            final TransferJournal journal = new TransferJournal(directory);
+            ledgerBank.setJournal(journal);
+            journal.close();
+
+            assertThrows(IllegalStateException.class, () -> ledgerBank.addAccount(new Account("Testing 1", BigDecimal.ONE)));
+            assertTrue(ledgerBank.findAccount("Testing 1").isEmpty());
+            assertEquals(0, ledgerBank.getLedger().size());
+            assertTrue(ledgerBank.getAccounts().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Testing batch transfers with several views of the same account")
+        void testBatchTransferWithViews() {
+            ledgerBank.addAccount(new Account("Testing 1", new BigDecimal("100")));
+            ledgerBank.addAccount(new Account("Testing 2", new BigDecimal("0")));
+
+            final List<TransferResult> results = ledgerBank.transfer(List.of(
+                    new Transfer(ledgerBank.findAccount("Testing 1").orElseThrow(), ledgerBank.findAccount("Testing 2").orElseThrow(), new BigDecimal("60")),
+                    new Transfer(ledgerBank.findAccount("Testing 1").orElseThrow(), ledgerBank.findAccount("Testing 2").orElseThrow(), new BigDecimal("60"))));
+
+            assertTrue(results.stream().allMatch(result -> result.status() == TransferResult.Status.INSUFFICIENT_MONEY));
+            assertEquals(new BigDecimal("100.00"), ledgerBank.findAccount("Testing 1").orElseThrow().getAmount());
+        }
+
+        @Test
+        @DisplayName("Testing a full ledger and a ledger shared by two banks")
+        void testLedgerLimits() {
+            final Bank smallBank = new Bank("Small Bank", new OffHeapLedger(1, 2, 1, 64));
+            smallBank.addAccount(new Account("Testing 1", BigDecimal.ONE));
+
+            assertThrows(IllegalStateException.class, () -> smallBank.addAccount(new Account("Testing 2", BigDecimal.ONE)));
+            assertThrows(IllegalStateException.class, () -> new Bank("Other Bank", smallBank.getLedger()));
+            assertThrows(IllegalArgumentException.class, () -> new OffHeapLedger(16, 2, 3, 64));
+        }
+
+        @Test
+        @DisplayName("Testing the holder bytes of renamed and removed accounts are reused")
+        void testHolderBytesAreReused() {
+            // Room for two holders of 16 bytes
+            final Bank smallBank = new Bank("Small Bank", new OffHeapLedger(16, 2, 4, 32));
+            smallBank.addAccount(new Account("Testing " + "1".repeat(8), BigDecimal.ONE));
+            smallBank.addAccount(new Account("Testing " + "2".repeat(8), BigDecimal.TEN));
+            final Account account = smallBank.findAccount("Testing " + "1".repeat(8)).orElseThrow();
+
+            for (int i = 0; i < 100; i++) {
+                account.setPerson("Testing " + String.valueOf(i % 2 + 3).repeat(8));
+            }
+            String other = "Testing " + "2".repeat(8);
+            for (int i = 0; i < 10; i++) {
+                smallBank.removeAccount(smallBank.findAccount(other).orElseThrow());
+                other = "Testing %08d".formatted(i);
+                smallBank.addAccount(new Account(other, BigDecimal.ONE));
+            }
+
+            assertEquals("Testing " + "4".repeat(8), account.getPerson());
+            assertEquals("Testing 00000009", smallBank.findAccount(other).orElseThrow().getPerson());
+            assertEquals(2, smallBank.getLedger().size());
+            assertThrows(IllegalStateException.class, () -> smallBank.addAccount(new Account("Testing 10", BigDecimal.ONE)));
+            smallBank.getLedger().close();
+        }
+
+        @Test
+        @DisplayName("Testing a closed ledger gives its number to the next ledger")
+        void testClosedLedgersAreRecycled() {
+            final OffHeapLedger ledger = ledgerBank.getLedger();
+            ledger.close();
+            ledger.close();
+
+            assertThrows(IllegalStateException.class, () -> ledgerBank.addAccount(new Account("Testing 1", BigDecimal.ONE)));
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                for (int i = 0; i < 40_000; i++) {
+                    new OffHeapLedger(1, 2, 1, 16).close();
+                }
+            });
+        }
+
+        @Test
+        @Tag("Concurrency")
+        @DisplayName("Testing that concurrent transfers between ledger views conserve the total money")
+        void testConcurrentLedgerTransfersConserveMoney() {
+            final int accounts = 32;
+            for (int i = 0; i < accounts; i++) {
+                ledgerBank.addAccount(new Account("Testing " + i, new BigDecimal("1000.00")));
+            }
+            final BigDecimal waitedTotal = ledgerBank.getLedger().totalAmount();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                final ExecutorService executor = Executors.newFixedThreadPool(8);
+                try {
+                    final List<Future<?>> futures = new ArrayList<>();
+                    for (int t = 0; t < 8; t++) {
+                        futures.add(executor.submit(() -> {
+                            final ThreadLocalRandom random = ThreadLocalRandom.current();
+                            for (int i = 0; i < 10_000; i++) {
+                                final Account origin = ledgerBank.findAccount("Testing " + random.nextInt(accounts)).orElseThrow();
+                                final Account destination = ledgerBank.findAccount("Testing " + random.nextInt(accounts)).orElseThrow();
+                                try {
+                                    ledgerBank.transfer(origin, destination, BigDecimal.valueOf(random.nextInt(1, 500)));
+                                } catch (InsufficientMoneyException e) {
+                                    // Expected for the accounts without enough money
+                                }
+                            }
+                        }));
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                } finally {
+                    executor.shutdownNow();
+                }
+            });
+
+            assertEquals(waitedTotal, ledgerBank.getLedger().totalAmount());
+            assertEquals(waitedTotal, ledgerBank.getAccounts().stream().map(Account::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+        }
+    }
+
+    @Nested
+    @Tag("Bank")
+    @DisplayName("Bulk operations test")
+    class BulkOperationTests {
+        private void addAccounts(final Bank target, final int accounts, final String amount) {
+            for (int i = 0; i < accounts; i++) {
+                target.addAccount(new Account("Testing " + i, new BigDecimal(amount)));
+            }
+        }
+
+        @Test
+        @DisplayName("Testing interest and fees on every account")
+        void testUpdateBalances() {
+            bank.addAccount(new Account("Testing 1", new BigDecimal("1000.00")));
+            bank.addAccount(new FixedPointAccount("Testing 2", new BigDecimal("2.00")));
+            bank.addAccount(new StripedAccount("Testing 3", new BigDecimal("0.00")));
+
+            final BalanceUpdateResult interest = bank.updateBalances(amount -> amount.multiply(new BigDecimal("1.015")).setScale(2, RoundingMode.HALF_EVEN));
+            assertEquals(2, interest.updated());
+            assertTrue(interest.isComplete());
+            assertEquals(new BigDecimal("1015.00"), bank.findAccount("Testing 1").orElseThrow().getAmount());
+            assertEquals(new BigDecimal("2.03"), bank.findAccount("Testing 2").orElseThrow().getAmount());
+
+            final BalanceUpdateResult fees = bank.updateBalances(amount -> amount.subtract(new BigDecimal("5")));
+            assertEquals(1, fees.updated());
+            assertEquals(List.of("Testing 2", "Testing 3"), fees.rejected().stream().map(Account::getPerson).sorted().toList());
+            assertEquals(new BigDecimal("1010.00"), bank.findAccount("Testing 1").orElseThrow().getAmount());
+            assertEquals(new BigDecimal("2.03"), bank.findAccount("Testing 2").orElseThrow().getAmount());
+
+            final BalanceUpdateResult tooPrecise = bank.updateBalances(amount -> amount.add(new BigDecimal("0.001")));
+            assertEquals(1, tooPrecise.updated());
+            assertEquals(List.of("Testing 2", "Testing 3"), tooPrecise.rejected().stream().map(Account::getPerson).sorted().toList());
+        }
+
+        @Test
+        @DisplayName("Testing totals, summaries and filters of balances")
+        void testAggregateBalances() {
+            final Bank ledgerBank = new Bank("Ledger Bank", new OffHeapLedger(1024));
+            for (Bank target : List.of(bank, ledgerBank)) {
+                assertEquals(BalanceSummary.EMPTY, target.summarizeBalances());
+                for (int i = 0; i < 1000; i++) {
+                    target.addAccount(new Account("Testing " + i, BigDecimal.valueOf(i, 2)));
+                }
+                target.removeAccount(target.findAccount("Testing 999").orElseThrow());
+
+                final BalanceSummary summary = target.summarizeBalances();
+                assertEquals(0, new BigDecimal("4985.01").compareTo(target.totalAmount()));
+                assertEquals(999, summary.count());
+                assertEquals(0, new BigDecimal("4985.01").compareTo(summary.total()));
+                assertEquals(0, BigDecimal.ZERO.compareTo(summary.min()));
+                assertEquals(0, new BigDecimal("9.98").compareTo(summary.max()));
+                assertEquals(0, new BigDecimal("4.99").compareTo(summary.average()));
+                assertEquals(List.of("Testing 995", "Testing 996", "Testing 997", "Testing 998"),
+                        target.findAccounts(amount -> amount.compareTo(new BigDecimal("9.95")) >= 0).stream().map(Account::getPerson).toList());
+            }
+        }
+
+        @Test
+        @Tag("Concurrency")
+        @DisplayName("Testing bulk operations are consistent with concurrent transfers")
+        void testBulkOperationsWithConcurrentTransfers() {
+            final int accounts = 64;
+            final Bank ledgerBank = new Bank("Ledger Bank", new OffHeapLedger(accounts));
+            addAccounts(bank, accounts, "1000.00");
+            addAccounts(ledgerBank, accounts, "1000.00");
+
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                final ExecutorService executor = Executors.newFixedThreadPool(4);
+                try {
+                    for (Bank target : List.of(bank, ledgerBank)) {
+                        final AtomicBoolean running = new AtomicBoolean(true);
+                        final List<Future<?>> futures = new ArrayList<>();
+                        for (int t = 0; t < 4; t++) {
+                            futures.add(executor.submit(() -> {
+                                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                                while (running.get()) {
+                                    final Account origin = target.findAccount("Testing " + random.nextInt(accounts)).orElseThrow();
+                                    final Account destination = target.findAccount("Testing " + random.nextInt(accounts)).orElseThrow();
+                                    try {
+                                        target.transfer(origin, destination, BigDecimal.valueOf(random.nextInt(1, 300)));
+                                    } catch (InsufficientMoneyException e) {
+                                        // Expected for the accounts without enough money
+                                    }
+                                }
+                            }));
+                        }
+
+                        BigDecimal waitedTotal = new BigDecimal("64000.00");
+                        for (int round = 0; round < 50; round++) {
+                            assertEquals(0, waitedTotal.compareTo(target.totalAmount()));
+                            assertEquals(0, waitedTotal.compareTo(target.summarizeBalances().total()));
+                            assertEquals(accounts, target.findAccounts(amount -> amount.signum() >= 0).size());
+                            // Doubling every balance only doubles the total when no transfer runs during the pass
+                            if (round < 10) {
+                                target.updateBalances(amount -> amount.multiply(BigDecimal.TWO));
+                                waitedTotal = waitedTotal.multiply(BigDecimal.TWO);
+                            } else {
+                                assertEquals(accounts, target.updateBalances(amount -> amount.add(BigDecimal.ONE)).updated());
+                                waitedTotal = waitedTotal.add(BigDecimal.valueOf(accounts));
+                            }
+                        }
+                        running.set(false);
+                        for (Future<?> future : futures) {
+                            future.get();
+                        }
+                        assertEquals(0, waitedTotal.compareTo(target.totalAmount()));
+                    }
+                } finally {
+                    executor.shutdownNow();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.etamburini.junitapp.example.journals;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+import org.etamburini.junitapp.example.domains.FixedPointAccount;
+import org.etamburini.junitapp.example.domains.StripedAccount;
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Journal")
+class BankSnapshotTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Testing a bank is restored from its snapshot")
+    void testWriteAndRead() {
+        final Bank bank = new Bank("Testing Bank");
+        bank.addAccount(new Account("Testing 1", new BigDecimal("2500")));
+        bank.addAccount(new FixedPointAccount("Testing 2", new BigDecimal("1500.01")));
+        bank.addAccount(new StripedAccount("Testing 3", new BigDecimal("100.12345"), 5));
+        bank.addAccount(new Account("Testing ñ", new BigDecimal("-12345678901234567890.5")));
+        final Path path = directory.resolve("bank.snapshot");
+
+        BankSnapshot.write(bank, path);
+        final Bank restored = BankSnapshot.read(path);
+
+        assertEquals("Testing Bank", restored.getName());
+        assertEquals(4, restored.getAccounts().size());
+        for (int i = 0; i < bank.getAccounts().size(); i++) {
+            final Account account = bank.getAccounts().get(i);
+            final Account restoredAccount = restored.getAccounts().get(i);
+            assertEquals(account.getPerson(), restoredAccount.getPerson());
+            assertEquals(account.getAmount().toPlainString(), restoredAccount.getAmount().toPlainString());
+            assertEquals(account.getClass(), restoredAccount.getClass());
+            assertSame(restored, restoredAccount.getBank());
+        }
+    }
+
+    @Test
+    @DisplayName("Testing a snapshot with many chunks keeps the order of the accounts")
+    void testManyChunks() {
+        final Bank bank = new Bank("Testing Bank");
+        for (int i = 0; i < 10_000; i++) {
+            bank.addAccount(new Account("Testing " + i, BigDecimal.valueOf(i, 2)));
+        }
+        final Path path = directory.resolve("bank.snapshot");
+
+        BankSnapshot.write(bank, path, 512);
+        final Bank restored = BankSnapshot.read(path);
+
+        assertEquals(10_000, restored.getAccounts().size());
+        assertEquals("Testing 9999", restored.getAccounts().get(9999).getPerson());
+        assertEquals("99.99", restored.findAccount("Testing 9999").orElseThrow().getAmount().toPlainString());
+    }
+
+    @Test
+    @DisplayName("Testing a restored bank replays only the records journaled after the snapshot")
+    void testRestoreReplaysJournalAfterSnapshot() {
+        final Path journalDirectory = directory.resolve("journal");
+        final Path path = directory.resolve("bank.snapshot");
+        final Bank bank = new Bank("Testing Bank");
+        try (TransferJournal journal = new TransferJournal(journalDirectory, 256, false)) {
+            bank.setJournal(journal);
+            bank.addAccount(new Account("Testing 1", new BigDecimal("100")));
+            bank.addAccount(new StripedAccount("Testing 2", new BigDecimal("0")));
+        }
+        final Account account1 = bank.findAccount("Testing 1").orElseThrow();
+        final Account account2 = bank.findAccount("Testing 2").orElseThrow();
+
+        try (TransferJournal journal = new TransferJournal(journalDirectory, 256, false)) {
+            bank.setJournal(journal);
+            for (int i = 0; i < 20; i++) {
+                bank.transfer(account1, account2, BigDecimal.ONE);
+            }
+            BankSnapshot.write(bank, path);
+            for (int i = 0; i < 30; i++) {
+                bank.transfer(account1, account2, BigDecimal.ONE);
+            }
+            account2.credit(new BigDecimal("0.5"));
+            account1.setPerson("Testing 3");
+        }
+
+        final Bank restored;
+        try (TransferJournal journal = new TransferJournal(journalDirectory, 256, false)) {
+            restored = BankSnapshot.restore(path, journal);
+            assertSame(journal, restored.getJournal());
+        }
+
+        assertAll(
+                () -> assertEquals(2, restored.getAccounts().size()),
+                () -> assertEquals("50", restored.findAccount("Testing 3").orElseThrow().getAmount().toPlainString()),
+                () -> assertEquals("50.50", restored.findAccount("Testing 2").orElseThrow().getAmount().toPlainString()),
+                () -> assertTrue(restored.findAccount("Testing 1").isEmpty())
+        );
+    }
+
+    @Test
+    @Tag("Concurrency")
+    @DisplayName("Testing the snapshots taken during transfers keep the total of the bank")
+    void testSnapshotDuringTransfers() throws InterruptedException {
+        final Path journalDirectory = directory.resolve("journal");
+        final Path path = directory.resolve("bank.snapshot");
+        final Bank bank = new Bank("Testing Bank");
+        final Account[] accounts = new Account[8];
+        final Thread[] threads = new Thread[4];
+        try (TransferJournal journal = new TransferJournal(journalDirectory)) {
+            bank.setJournal(journal);
+            for (int i = 0; i < accounts.length; i++) {
+                accounts[i] = i % 2 == 0 ? new Account("Testing " + i, new BigDecimal("1000"))
+                        : new StripedAccount("Testing " + i, new BigDecimal("1000"));
+                bank.addAccount(accounts[i]);
+            }
+
+            final AtomicBoolean running = new AtomicBoolean(true);
+            for (int i = 0; i < threads.length; i++) {
+                final int offset = i;
+                threads[i] = Thread.ofPlatform().start(() -> {
+                    for (int j = 0; running.get(); j++) {
+                        final Account origin = accounts[(j + offset) % accounts.length];
+                        final Account destination = accounts[(j + offset + 1) % accounts.length];
+                        try {
+                            bank.transfer(origin, destination, BigDecimal.ONE);
+                        } catch (InsufficientMoneyException e) {
+                            // Another transfer emptied the origin
+                        }
+                    }
+                });
+            }
+            try {
+                for (int i = 0; i < 50; i++) {
+                    BankSnapshot.write(bank, path);
+                    final BigDecimal total = BankSnapshot.read(path).getAccounts().stream()
+                            .map(Account::getAmount)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    assertEquals(0, new BigDecimal("8000").compareTo(total), () -> "The snapshot holds " + total);
+                }
+            } finally {
+                running.set(false);
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+        }
+
+        final Bank restored;
+        try (TransferJournal journal = new TransferJournal(journalDirectory)) {
+            restored = BankSnapshot.restore(path, journal);
+        }
+        for (Account account : accounts) {
+            assertEquals(0, account.getAmount().compareTo(restored.findAccount(account.getPerson()).orElseThrow().getAmount()),
+                    () -> "The restored balance of " + account.getPerson());
+        }
+    }
+
+    @Test
+    void testReadInvalidSnapshot() throws IOException {
+        final Path path = Files.write(directory.resolve("bank.snapshot"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+
+        assertThrows(IllegalArgumentException.class, () -> BankSnapshot.read(path));
+    }
+
+    @Test
+    @DisplayName("Testing a snapshot that fails to be written keeps the previous one")
+    void testFailedWriteKeepsThePreviousSnapshot() throws IOException {
+        final Bank bank = new Bank("Testing Bank");
+        bank.addAccount(new Account("Testing 1", new BigDecimal("2500")));
+        final Path path = directory.resolve("bank.snapshot");
+        BankSnapshot.write(bank, path);
+
+        bank.addAccount(new Account("Testing " + "2".repeat(512), new BigDecimal("10")));
+        assertThrows(IllegalArgumentException.class, () -> BankSnapshot.write(bank, path, 256));
+
+        final Bank restored = BankSnapshot.read(path);
+        assertEquals(1, restored.getAccounts().size());
+        assertEquals("2500", restored.findAccount("Testing 1").orElseThrow().getAmount().toPlainString());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList(), () -> "The file of the failed snapshot must be removed");
+        }
+    }
+
+    @Test
+    void testReadRejectsOtherVersions() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Short.BYTES + Integer.BYTES)
+                .putInt(BankSnapshot.MAGIC).putShort((short) 1).putInt(0);
+        final Path path = Files.write(directory.resolve("bank.snapshot"), header.array());
+
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> BankSnapshot.read(path));
+        assertEquals("Unsupported bank snapshot version 1", exception.getMessage());
+    }
+}
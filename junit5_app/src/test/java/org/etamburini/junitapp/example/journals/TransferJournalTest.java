@@ -0,0 +1,195 @@
+package org.etamburini.junitapp.example.journals;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+import org.etamburini.junitapp.example.domains.FixedPointAccount;
+import org.etamburini.junitapp.example.domains.Transfer;
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Journal")
+class TransferJournalTest {
+    @TempDir
+    private Path directory;
+
+    private Bank replay(final int segmentSize) {
+        final Bank bank = new Bank("Testing Bank");
+        try (TransferJournal journal = new TransferJournal(directory, segmentSize, false)) {
+            journal.replay(bank);
+        }
+
+        return bank;
+    }
+
+    private String amountOf(final Bank bank, final String person) {
+        return bank.findAccount(person).orElseThrow().getAmount().toPlainString();
+    }
+
+    @Test
+    @DisplayName("Testing the bank state is rebuilt from the journal")
+    void testReplayRebuildsBank() {
+        final Bank bank = new Bank("Testing Bank");
+        try (TransferJournal journal = new TransferJournal(directory)) {
+            bank.setJournal(journal);
+            final Account account1 = new Account("Testing 1", new BigDecimal("2500"));
+            final Account account2 = new FixedPointAccount("Testing 2", new BigDecimal("1500.01"));
+            final Account account3 = new Account("Testing 3", new BigDecimal("100"));
+            bank.addAccount(account1);
+            bank.addAccount(account2);
+            bank.addAccount(account3);
+
+            bank.transfer(account1, account2, new BigDecimal("500"));
+            account3.debit(new BigDecimal("30"));
+            account3.credit(new BigDecimal("0.5"));
+            assertThrows(InsufficientMoneyException.class, () -> bank.transfer(account3, account1, new BigDecimal("1000")));
+            bank.transfer(List.of(
+                    new Transfer(account2, account3, new BigDecimal("1000")),
+                    new Transfer(account3, account1, new BigDecimal("1050"))
+            ));
+            account1.setPerson("Testing 4");
+            account2.setAmount(new BigDecimal("7"));
+            bank.removeAccount(account3);
+        }
+
+        final Bank replayed = replay(TransferJournal.DEFAULT_SEGMENT_SIZE);
+
+        assertAll(
+                () -> assertEquals(2, replayed.getAccounts().size()),
+                () -> assertEquals("3050", amountOf(replayed, "Testing 4")),
+                () -> assertEquals("7", amountOf(replayed, "Testing 2")),
+                () -> assertTrue(replayed.findAccount("Testing 1").isEmpty()),
+                () -> assertTrue(replayed.findAccount("Testing 3").isEmpty())
+        );
+    }
+
+    @Test
+    @Tag("Concurrency")
+    @DisplayName("Testing renames journaled while the account is debited and credited")
+    void testRenameWithConcurrentOperations() {
+        final Bank bank = new Bank("Testing Bank");
+        try (TransferJournal journal = new TransferJournal(directory)) {
+            bank.setJournal(journal);
+            final Account account = new Account("Testing 1", new BigDecimal("1000"));
+            bank.addAccount(account);
+
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                final Thread renames = Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        account.setPerson("Testing " + (i % 2 == 0 ? 2 : 1));
+                    }
+                });
+                while (renames.isAlive()) {
+                    account.credit(BigDecimal.ONE);
+                    account.debit(BigDecimal.ONE);
+                }
+                renames.join();
+            });
+        }
+
+        final Bank replayed = replay(TransferJournal.DEFAULT_SEGMENT_SIZE);
+
+        assertEquals("1000", amountOf(replayed, "Testing 1"));
+    }
+
+    @Test
+    @DisplayName("Testing the journal is appended after a restart and rolls its segments")
+    void testReopenAndRollSegments() throws IOException {
+        final int segmentSize = 256;
+        final Bank bank = new Bank("Testing Bank");
+        try (TransferJournal journal = new TransferJournal(directory, segmentSize, false)) {
+            bank.setJournal(journal);
+            bank.addAccount(new Account("Testing 1", new BigDecimal("100")));
+            bank.addAccount(new Account("Testing 2", new BigDecimal("0")));
+        }
+
+        try (TransferJournal journal = new TransferJournal(directory, segmentSize, false)) {
+            final Bank restarted = new Bank("Testing Bank");
+            journal.replay(restarted);
+            restarted.setJournal(journal);
+            final Account account1 = restarted.findAccount("Testing 1").orElseThrow();
+            final Account account2 = restarted.findAccount("Testing 2").orElseThrow();
+            for (int i = 0; i < 100; i++) {
+                restarted.transfer(account1, account2, BigDecimal.ONE);
+            }
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1, () -> "The journal should have rolled to new segments");
+        }
+        final Bank replayed = replay(segmentSize);
+        assertEquals("0", amountOf(replayed, "Testing 1"));
+        assertEquals("100", amountOf(replayed, "Testing 2"));
+    }
+
+    @Test
+    @DisplayName("Testing the sequence goes on from the records of a reopened journal")
+    void testSequenceAfterReopen() {
+        final Bank bank = new Bank("Testing Bank");
+        try (TransferJournal journal = new TransferJournal(directory, 256, false)) {
+            bank.setJournal(journal);
+            for (int i = 0; i < 20; i++) {
+                bank.addAccount(new Account("Testing " + i, new BigDecimal("100")));
+            }
+        }
+
+        try (TransferJournal journal = new TransferJournal(directory, 256, false)) {
+            assertEquals(20, journal.getSequence());
+            assertEquals(20, journal.getDurableSequence());
+            assertEquals(21, journal.appendCredit("Testing 19", BigDecimal.ONE));
+
+            final Bank replayed = new Bank("Testing Bank");
+            journal.replay(replayed, 19);
+            assertEquals(1, replayed.getAccounts().size());
+            assertEquals("101", amountOf(replayed, "Testing 19"));
+            assertThrows(IllegalStateException.class, () -> journal.replay(new Bank("Testing Bank"), 22));
+        }
+    }
+
+    @Test
+    @Tag("Concurrency")
+    @DisplayName("Testing concurrent appends share the group commits")
+    void testGroupCommit() throws InterruptedException {
+        final Bank bank = new Bank("Testing Bank");
+        try (TransferJournal journal = new TransferJournal(directory, 1024 * 1024, true)) {
+            bank.setJournal(journal);
+            final Account[] accounts = new Account[8];
+            for (int i = 0; i < accounts.length; i++) {
+                accounts[i] = new Account("Testing " + i, new BigDecimal("1000"));
+                bank.addAccount(accounts[i]);
+            }
+
+            final Thread[] threads = new Thread[accounts.length];
+            for (int i = 0; i < threads.length; i++) {
+                final Account origin = accounts[i];
+                final Account destination = accounts[(i + 1) % accounts.length];
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        bank.transfer(origin, destination, BigDecimal.ONE);
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(accounts.length + threads.length * 200L, journal.getSequence());
+            assertEquals(journal.getSequence(), journal.getDurableSequence());
+        }
+
+        final Bank replayed = replay(1024 * 1024);
+        assertEquals(8, replayed.getAccounts().size());
+        assertTrue(replayed.getAccounts().stream().allMatch(account -> account.getAmount().compareTo(new BigDecimal("1000")) == 0));
+    }
+}
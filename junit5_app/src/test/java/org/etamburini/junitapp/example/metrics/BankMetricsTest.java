@@ -0,0 +1,145 @@
+package org.etamburini.junitapp.example.metrics;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+import org.etamburini.junitapp.example.domains.FixedPointAccount;
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Metrics")
+class BankMetricsTest {
+    @Nested
+    class LatencyHistogramTests {
+        @Test
+        void testPercentiles() {
+            final LatencyHistogram histogram = new LatencyHistogram();
+            for (long i = 1; i <= 100_000; i++) {
+                histogram.record(i);
+            }
+
+            assertEquals(100_000, histogram.getCount());
+            assertEquals(100_000, histogram.getMax());
+            assertEquals(50_000.5, histogram.getMean());
+            assertEquals(50_000, histogram.getPercentile(50), 50_000 * 0.04);
+            assertEquals(99_000, histogram.getPercentile(99), 99_000 * 0.04);
+            assertEquals(100_000, histogram.getPercentile(100));
+
+            histogram.reset();
+            assertEquals(0, histogram.getCount());
+            assertEquals(0, histogram.getPercentile(99));
+        }
+
+        @Test
+        void testBucketBounds() {
+            for (long value : new long[]{0, 1, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE}) {
+                final int index = LatencyHistogram.indexOf(value);
+                assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+                assertTrue(index == 0 || LatencyHistogram.highestValueOf(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    @Tag("Concurrency")
+    @DisplayName("Testing every recording lands in exactly one snapshot while the metrics are reset")
+    void testSnapshotAndResetDuringRecordings() throws InterruptedException {
+        final BankMetrics metrics = new BankMetrics();
+        final IllegalStateException cause = new IllegalStateException();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final long[] recorded = new long[4];
+        final Thread[] threads = new Thread[recorded.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int thread = i;
+            threads[i] = Thread.ofPlatform().start(() -> {
+                while (running.get()) {
+                    metrics.recordFailure(BankMetrics.Operation.TRANSFER, System.nanoTime(), cause);
+                    recorded[thread]++;
+                }
+            });
+        }
+
+        long counted = 0;
+        try {
+            for (int i = 0; i < 2000; i++) {
+                final MetricsSnapshot.OperationSnapshot transfers = metrics.snapshotAndReset().get(BankMetrics.Operation.TRANSFER);
+                assertEquals(transfers.count(), transfers.failures(), "Every failure is counted with its latency");
+                counted += transfers.count();
+            }
+        } finally {
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        counted += metrics.snapshotAndReset().get(BankMetrics.Operation.TRANSFER).count();
+
+        assertEquals(Arrays.stream(recorded).sum(), counted);
+    }
+
+    @Nested
+    class BankIntegrationTests {
+        private Bank bank;
+        private BankMetrics metrics;
+        private Account account1;
+        private Account account2;
+
+        @BeforeEach
+        void initBank() {
+            bank = new Bank("Testing Bank");
+            metrics = new BankMetrics();
+            account1 = new Account("Testing 1", new BigDecimal("2500"));
+            account2 = new FixedPointAccount("Testing 2", new BigDecimal("1500.01"));
+            bank.addAccount(account1);
+            bank.addAccount(account2);
+        }
+
+        @Test
+        void testOperationsAreMeasured() {
+            bank.setMetrics(metrics);
+
+            bank.transfer(account1, account2, new BigDecimal("500"));
+            assertThrows(InsufficientMoneyException.class, () -> bank.transfer(account1, account2, new BigDecimal("5000")));
+            assertThrows(ArithmeticException.class, () -> bank.transfer(account1, account2, new BigDecimal("0.001")));
+            account1.debit(BigDecimal.ONE);
+            assertThrows(InsufficientMoneyException.class, () -> account1.debit(new BigDecimal("5000")));
+            account1.credit(BigDecimal.ONE);
+            ((FixedPointAccount) account2).creditUnits(100);
+
+            final MetricsSnapshot snapshot = metrics.snapshot();
+            final MetricsSnapshot.OperationSnapshot transfers = snapshot.get(BankMetrics.Operation.TRANSFER);
+            assertAll(
+                    () -> assertEquals(3, transfers.count()),
+                    () -> assertEquals(2, transfers.failures()),
+                    () -> assertEquals(1L, transfers.failuresByCause().get("InsufficientMoneyException")),
+                    () -> assertEquals(1L, transfers.failuresByCause().get("ArithmeticException")),
+                    () -> assertTrue(transfers.maxNanos() > 0),
+                    () -> assertEquals(2, snapshot.get(BankMetrics.Operation.DEBIT).count()),
+                    () -> assertEquals(0.5, snapshot.get(BankMetrics.Operation.DEBIT).getFailureRate()),
+                    () -> assertEquals(2, snapshot.get(BankMetrics.Operation.CREDIT).count())
+            );
+
+            final MetricsSnapshot previous = metrics.snapshotAndReset();
+            assertEquals(3, previous.get(BankMetrics.Operation.TRANSFER).count());
+            assertEquals(0, metrics.snapshot().get(BankMetrics.Operation.TRANSFER).count());
+            assertEquals(0, metrics.snapshot().get(BankMetrics.Operation.TRANSFER).failures());
+        }
+
+        @Test
+        void testDisabledMetrics() {
+            bank.transfer(account1, account2, new BigDecimal("500"));
+            bank.setMetrics(metrics);
+            bank.setMetrics(null);
+            account1.debit(BigDecimal.ONE);
+
+            assertNull(bank.getMetrics());
+            assertEquals(0, metrics.snapshot().get(BankMetrics.Operation.TRANSFER).count());
+            assertEquals(0, metrics.snapshot().get(BankMetrics.Operation.DEBIT).count());
+        }
+    }
+}
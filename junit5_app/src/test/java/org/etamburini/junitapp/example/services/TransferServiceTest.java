@@ -0,0 +1,163 @@
+package org.etamburini.junitapp.example.services;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+import org.etamburini.junitapp.example.exceptions.InsufficientMoneyException;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Concurrency")
+class TransferServiceTest {
+    private Bank bank;
+
+    @BeforeEach
+    void initMethodTest() {
+        bank = new Bank("Testing Bank");
+        for (int i = 0; i < 100; i++) {
+            bank.addAccount(new Account("Testing " + i, new BigDecimal("1000")));
+        }
+    }
+
+    private BigDecimal totalAmount() {
+        return bank.getAccounts().stream()
+                .map(Account::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Test
+    void testTransfer() {
+        try (TransferService service = new TransferService(bank)) {
+            service.transfer("Testing 1", "Testing 2", new BigDecimal("500")).join();
+
+            assertEquals("500", bank.findAccount("Testing 1").orElseThrow().getAmount().toPlainString());
+            assertEquals("1500", bank.findAccount("Testing 2").orElseThrow().getAmount().toPlainString());
+
+            final CompletionException exception = assertThrows(CompletionException.class,
+                    () -> service.transfer("Testing 1", "Testing 2", new BigDecimal("1500")).join());
+            assertInstanceOf(InsufficientMoneyException.class, exception.getCause());
+            assertEquals("Insufficient Money", exception.getCause().getMessage());
+            assertEquals("500", bank.findAccount("Testing 1").orElseThrow().getAmount().toPlainString());
+        }
+    }
+
+    @Test
+    @DisplayName("Testing the latency percentiles of the transfers under load")
+    void testLatencyUnderLoad(final TestReporter testReporter) {
+        final int requests = 200_000;
+        final BigDecimal waitedTotal = totalAmount();
+        final long[] latencies = new long[requests];
+
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            try (TransferService service = new TransferService(bank, 10_000, Duration.ofSeconds(30))) {
+                final List<CompletableFuture<Void>> futures = new ArrayList<>(requests);
+                for (int i = 0; i < requests; i++) {
+                    final int request = i;
+                    final ThreadLocalRandom random = ThreadLocalRandom.current();
+                    final Account origin = bank.getAccounts().get(random.nextInt(100));
+                    final Account destination = bank.getAccounts().get(random.nextInt(100));
+                    final long start = System.nanoTime();
+                    futures.add(service.transfer(origin, destination, BigDecimal.ONE)
+                            .whenComplete((ignored, error) -> latencies[request] = System.nanoTime() - start));
+                }
+                CompletableFuture.allOf(futures.stream()
+                        .map(future -> future.exceptionally(error -> null))
+                        .toArray(CompletableFuture[]::new)).join();
+            }
+        });
+
+        Arrays.sort(latencies);
+        final String percentiles = "p50: " + TimeUnit.NANOSECONDS.toMicros(latencies[requests / 2]) + "us"
+                + ", p99: " + TimeUnit.NANOSECONDS.toMicros(latencies[requests * 99 / 100]) + "us"
+                + ", p99.9: " + TimeUnit.NANOSECONDS.toMicros(latencies[requests * 999 / 1000]) + "us"
+                + ", max: " + TimeUnit.NANOSECONDS.toMicros(latencies[requests - 1]) + "us";
+        System.out.println("Transfer latencies with " + requests + " requests -> " + percentiles);
+        testReporter.publishEntry("Transfer latencies", percentiles);
+
+        assertTrue(latencies[0] > 0);
+        assertEquals(0, waitedTotal.compareTo(totalAmount()), () -> "The total money was not conserved");
+    }
+
+    @Test
+    @DisplayName("Testing a full mailbox rejects new transfers")
+    void testBackpressure() throws InterruptedException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Bank blockingBank = new Bank("Testing Bank") {
+            @Override
+            public void transfer(final Account origin, final Account destination, final BigDecimal amount) {
+                if (origin.getPerson().equals("Blocking") && blocked.getCount() > 0) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                super.transfer(origin, destination, amount);
+            }
+        };
+        final Account origin = new Account("Testing 1", new BigDecimal("1000"));
+        final Account destination = new Account("Testing 2", new BigDecimal("1000"));
+        final Account blocking = new Account("Blocking", new BigDecimal("1000"));
+        blockingBank.addAccount(origin);
+        blockingBank.addAccount(destination);
+        blockingBank.addAccount(blocking);
+
+        try (TransferService service = new TransferService(blockingBank, 2, Duration.ofMillis(50))) {
+            final CompletableFuture<Void> first = service.transfer(blocking, destination, BigDecimal.ONE);
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+            final CompletableFuture<Void> second = service.transfer(blocking, destination, BigDecimal.ONE);
+            final CompletableFuture<Void> third = service.transfer(blocking, destination, BigDecimal.ONE);
+            final CompletableFuture<Void> rejected = service.transfer(blocking, destination, BigDecimal.ONE);
+
+            final CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+            assertEquals(2, service.pendingRequests(blocking));
+
+            release.countDown();
+            CompletableFuture.allOf(first, second, third).join();
+            service.transfer(origin, destination, BigDecimal.ONE).join();
+        }
+
+        assertEquals("997", blocking.getAmount().toPlainString());
+        assertEquals("1004", destination.getAmount().toPlainString());
+    }
+
+    @Test
+    @DisplayName("Testing the mailboxes of idle accounts are evicted")
+    void testIdleMailboxesAreEvicted() {
+        final BigDecimal waitedTotal = totalAmount();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            try (TransferService service = new TransferService(bank)) {
+                final List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    futures.add(service.transfer(bank.getAccounts().get(i % 100), bank.getAccounts().get((i * 7 + 1) % 100), BigDecimal.ONE));
+                }
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+                while (service.mailboxCount() > 0) {
+                    Thread.onSpinWait();
+                }
+                service.transfer("Testing 1", "Testing 2", BigDecimal.ONE).join();
+                assertEquals("999", bank.findAccount("Testing 1").orElseThrow().getAmount().toPlainString());
+                assertEquals("1001", bank.findAccount("Testing 2").orElseThrow().getAmount().toPlainString());
+            }
+        });
+
+        assertEquals(0, waitedTotal.compareTo(totalAmount()), () -> "The total money was not conserved");
+    }
+}
@@ -0,0 +1,77 @@
+package org.etamburini.junitapp.example.benchmarks;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+    @State(Scope.Thread)
+    public static class OwnAccount {
+        @Param({"0", "2", "8"})
+        private int scale;
+
+        private Account account;
+        private Account sameAccount;
+        private BigDecimal amount;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            account = new Account("Testing", new BigDecimal("1000000").setScale(scale));
+            sameAccount = new Account("Testing", new BigDecimal("1000000").setScale(scale));
+            amount = BigDecimal.ONE.movePointLeft(scale);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedAccount {
+        private Account account;
+        private BigDecimal amount;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            account = new Account("Testing", new BigDecimal("1000000.00"));
+            amount = new BigDecimal("0.01");
+        }
+    }
+
+    @Benchmark
+    public BigDecimal debit(final OwnAccount state) {
+        state.account.debit(state.amount);
+        state.account.credit(state.amount);
+        return state.account.getAmount();
+    }
+
+    @Benchmark
+    public BigDecimal credit(final OwnAccount state) {
+        state.account.credit(state.amount);
+        return state.account.getAmount();
+    }
+
+    @Benchmark
+    public boolean equalAccounts(final OwnAccount state) {
+        return state.account.equals(state.sameAccount);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BigDecimal contendedDebitCredit4Threads(final SharedAccount state) {
+        state.account.debit(state.amount);
+        state.account.credit(state.amount);
+        return state.account.getAmount();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public BigDecimal contendedDebitCredit16Threads(final SharedAccount state) {
+        state.account.debit(state.amount);
+        state.account.credit(state.amount);
+        return state.account.getAmount();
+    }
+}
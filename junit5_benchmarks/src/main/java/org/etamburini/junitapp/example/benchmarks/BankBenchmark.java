@@ -0,0 +1,71 @@
+package org.etamburini.junitapp.example.benchmarks;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+import org.etamburini.junitapp.example.metrics.BankMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BankBenchmark {
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"2", "1000", "1000000"})
+    private int accounts;
+
+    @Param({"false", "true"})
+    private boolean metrics;
+
+    private Bank bank;
+    private List<Account> bankAccounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank("Benchmark Bank");
+        bank.setMetrics(metrics ? new BankMetrics() : null);
+        for (int i = 0; i < accounts; i++) {
+            bank.addAccount(new Account("Person " + i, new BigDecimal("1000000.00")));
+        }
+        bankAccounts = bank.getAccounts();
+    }
+
+    private void randomTransfer() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Account origin = bankAccounts.get(random.nextInt(accounts));
+        final Account destination = bankAccounts.get(random.nextInt(accounts));
+        bank.transfer(origin, destination, AMOUNT);
+        bank.transfer(destination, origin, AMOUNT);
+    }
+
+    @Benchmark
+    public void transfer() {
+        randomTransfer();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void transfer4Threads() {
+        randomTransfer();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void transfer16Threads() {
+        randomTransfer();
+    }
+
+    @Benchmark
+    public Optional<Account> findAccount() {
+        return bank.findAccount("Person " + ThreadLocalRandom.current().nextInt(accounts));
+    }
+}
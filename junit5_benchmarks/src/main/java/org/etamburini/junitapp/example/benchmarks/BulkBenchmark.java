@@ -0,0 +1,86 @@
+package org.etamburini.junitapp.example.benchmarks;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.BalanceSummary;
+import org.etamburini.junitapp.example.domains.BalanceUpdateResult;
+import org.etamburini.junitapp.example.domains.Bank;
+import org.etamburini.junitapp.example.domains.OffHeapLedger;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The bulk operations run on the common fork-join pool, its size is set with
+// -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=N to compare the scaling
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkBenchmark {
+    private static final BigDecimal RATE = new BigDecimal("1.000001");
+    private static final BigDecimal MIN = new BigDecimal("1000000.50");
+
+    @Param({"10000", "1000000"})
+    private int accounts;
+
+    @Param({"objects", "ledger"})
+    private String store;
+
+    private Bank bank;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = store.equals("ledger") ? new Bank("Benchmark Bank", new OffHeapLedger(accounts)) : new Bank("Benchmark Bank");
+        for (int i = 0; i < accounts; i++) {
+            bank.addAccount(new Account("Person " + i, new BigDecimal("1000000.00")));
+        }
+    }
+
+    private static BigDecimal interest(final BigDecimal amount) {
+        return amount.multiply(RATE).setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public int sequentialInterest() {
+        int updated = 0;
+        for (Account account : bank.getAccounts()) {
+            final BigDecimal amount = account.getAmount();
+            account.credit(interest(amount).subtract(amount));
+            updated++;
+        }
+        return updated;
+    }
+
+    @Benchmark
+    public BalanceUpdateResult updateBalances() {
+        return bank.updateBalances(BulkBenchmark::interest);
+    }
+
+    @Benchmark
+    public BigDecimal sequentialTotalAmount() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : bank.getAccounts()) {
+            total = total.add(account.getAmount());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal totalAmount() {
+        return bank.totalAmount();
+    }
+
+    @Benchmark
+    public BalanceSummary summarizeBalances() {
+        return bank.summarizeBalances();
+    }
+
+    @Benchmark
+    public List<Account> findAccounts() {
+        return bank.findAccounts(amount -> amount.compareTo(MIN) < 0);
+    }
+}
@@ -0,0 +1,111 @@
+package org.etamburini.junitapp.example.benchmarks;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.Bank;
+import org.etamburini.junitapp.example.domains.OffHeapLedger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LedgerBenchmark {
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"1000", "1000000"})
+    private int accounts;
+
+    @Param({"objects", "ledger"})
+    private String store;
+
+    private Bank bank;
+    private List<Account> bankAccounts;
+    private long heapBytes;
+    private long offHeapBytes;
+
+    // The footprint of the store is measured once per trial and reported next to the scores
+    @Setup(Level.Trial)
+    public void setUp() {
+        final long heapBefore = usedHeap();
+        if (store.equals("ledger")) {
+            bank = new Bank("Benchmark Bank", new OffHeapLedger(accounts));
+        } else {
+            bank = new Bank("Benchmark Bank");
+        }
+        for (int i = 0; i < accounts; i++) {
+            bank.addAccount(new Account("Person " + i, new BigDecimal("1000000.00")));
+        }
+        heapBytes = usedHeap() - heapBefore;
+        offHeapBytes = bank.getLedger() == null ? 0 : bank.getLedger().offHeapBytes();
+        if (bank.getLedger() == null) {
+            bankAccounts = bank.getAccounts();
+        }
+    }
+
+    // JMH clears the counters before every iteration and sums them over the iterations and the threads,
+    // so the benchmarks set their share on every call
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double heapBytes;
+        public double offHeapBytes;
+        private int shares;
+
+        @Setup(Level.Trial)
+        public void setUp(final BenchmarkParams params) {
+            shares = params.getMeasurement().getCount() * params.getThreads();
+        }
+    }
+
+    private void report(final Footprint footprint) {
+        footprint.heapBytes = (double) heapBytes / footprint.shares;
+        footprint.offHeapBytes = (double) offHeapBytes / footprint.shares;
+    }
+
+    private static long usedHeap() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // Both stores look the accounts up by holder, so the transfers compare the same work
+    private Account account(final int index) {
+        return bank.findAccount("Person " + index).orElseThrow();
+    }
+
+    @Benchmark
+    public BigDecimal totalAmount(final Footprint footprint) {
+        report(footprint);
+        final OffHeapLedger ledger = bank.getLedger();
+        if (ledger != null) {
+            return ledger.totalAmount();
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : bankAccounts) {
+            total = total.add(account.getAmount());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void transfer(final Footprint footprint) {
+        report(footprint);
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Account origin = account(random.nextInt(accounts));
+        final Account destination = account(random.nextInt(accounts));
+        bank.transfer(origin, destination, AMOUNT);
+        bank.transfer(destination, origin, AMOUNT);
+    }
+}
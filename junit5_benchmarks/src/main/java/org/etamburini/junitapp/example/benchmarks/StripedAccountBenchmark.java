@@ -0,0 +1,58 @@
+package org.etamburini.junitapp.example.benchmarks;
+
+import org.etamburini.junitapp.example.domains.Account;
+import org.etamburini.junitapp.example.domains.FixedPointAccount;
+import org.etamburini.junitapp.example.domains.StripedAccount;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StripedAccountBenchmark {
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"ACCOUNT", "FIXED_POINT", "STRIPED"})
+    private String implementation;
+
+    private Account account;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        account = switch (implementation) {
+            case "ACCOUNT" -> new Account("House", new BigDecimal("0.00"));
+            case "FIXED_POINT" -> new FixedPointAccount("House", new BigDecimal("0.00"));
+            case "STRIPED" -> new StripedAccount("House", new BigDecimal("0.00"));
+            default -> throw new IllegalArgumentException("Unknown implementation " + implementation);
+        };
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void credit1Thread() {
+        account.credit(AMOUNT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void credit4Threads() {
+        account.credit(AMOUNT);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void credit16Threads() {
+        account.credit(AMOUNT);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void credit64Threads() {
+        account.credit(AMOUNT);
+    }
+}
@@ -0,0 +1,25 @@
+package org.etamburini.mockitoapp.example.catalogs;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The immutable value kept by the catalog, the callers get fresh Exam copies of it
+public record CatalogExam(long id, String name, List<String> questions) {
+    public CatalogExam {
+        questions = List.copyOf(questions);
+    }
+
+    public static CatalogExam of(final Exam exam) {
+        return new CatalogExam(exam.getId(), exam.getName(), exam.getQuestions());
+    }
+
+    public Exam toExam() {
+        final Exam exam = new Exam(id, name);
+        if (!questions.isEmpty()) {
+            exam.setQuestions(new ArrayList<>(questions));
+        }
+        return exam;
+    }
+}
@@ -0,0 +1,160 @@
+package org.etamburini.mockitoapp.example.catalogs;
+
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.etamburini.mockitoapp.example.ids.IdAllocator;
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// The readers take a snapshot without locks, the writers build the next version and publish it with a compare and set
+public class ExamCatalog {
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+    private final IdAllocator idAllocator;
+
+    public ExamCatalog() {
+        this(new BlockIdAllocator());
+    }
+
+    public ExamCatalog(final IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    // The exam gets an id when it has none, a saved id is replaced in its position
+    public CatalogExam save(final Exam exam) {
+        assignId(exam);
+        final CatalogExam entry = CatalogExam.of(exam);
+        update(snapshot -> snapshot.with(entry, snapshot.version + 1));
+        return entry;
+    }
+
+    public List<CatalogExam> saveAll(final Collection<Exam> exams) {
+        final List<CatalogExam> entries = new ArrayList<>(exams.size());
+        for (Exam exam : exams) {
+            assignId(exam);
+            entries.add(CatalogExam.of(exam));
+        }
+        update(snapshot -> {
+            Snapshot next = snapshot;
+            for (CatalogExam entry : entries) {
+                next = next.with(entry, snapshot.version + 1);
+            }
+            return next;
+        });
+        return entries;
+    }
+
+    private void update(final UnaryOperator<Snapshot> change) {
+        Snapshot snapshot;
+        Snapshot next;
+        do {
+            snapshot = current.get();
+            next = change.apply(snapshot);
+        } while (!current.compareAndSet(snapshot, next));
+    }
+
+    private void assignId(final Exam exam) {
+        if (exam.getId() == null) {
+            exam.setId(idAllocator.nextId());
+        } else {
+            idAllocator.skipTo(exam.getId());
+        }
+    }
+
+    public static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(0L, 0, IntTrie.empty(), IntTrie.empty());
+
+        private final long version;
+        private final int size;
+        private final IntTrie<CatalogExam> examsByPosition;
+        // The positions by the hash of the id, the exams whose ids have the same hash share a bucket
+        private final IntTrie<long[]> positionsByIdHash;
+
+        private Snapshot(final long version, final int size, final IntTrie<CatalogExam> examsByPosition, final IntTrie<long[]> positionsByIdHash) {
+            this.version = version;
+            this.size = size;
+            this.examsByPosition = examsByPosition;
+            this.positionsByIdHash = positionsByIdHash;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public CatalogExam get(final int position) {
+            if (position < 0 || position >= size) {
+                throw new IndexOutOfBoundsException(position);
+            }
+            return examsByPosition.get(position);
+        }
+
+        public Optional<CatalogExam> findById(final long id) {
+            final int position = positionOf(id);
+            return position < 0 ? Optional.empty() : Optional.of(examsByPosition.get(position));
+        }
+
+        public Optional<CatalogExam> findFirstByName(final String name) {
+            final CatalogExam[] found = new CatalogExam[1];
+            examsByPosition.visitUntil(exam -> {
+                if (exam.name() != null && exam.name().contains(name)) {
+                    found[0] = exam;
+                    return true;
+                }
+                return false;
+            });
+            return Optional.ofNullable(found[0]);
+        }
+
+        public List<CatalogExam> exams() {
+            final List<CatalogExam> exams = new ArrayList<>(size);
+            examsByPosition.visitUntil(exam -> {
+                exams.add(exam);
+                return false;
+            });
+            return exams;
+        }
+
+        private Snapshot with(final CatalogExam exam, final long nextVersion) {
+            final int position = positionOf(exam.id());
+            if (position >= 0) {
+                return new Snapshot(nextVersion, size, examsByPosition.with(position, exam), positionsByIdHash);
+            }
+            final int hash = hash(exam.id());
+            final long[] bucket = positionsByIdHash.get(hash);
+            final long[] nextBucket = bucket == null ? new long[2] : Arrays.copyOf(bucket, bucket.length + 2);
+            nextBucket[nextBucket.length - 2] = exam.id();
+            nextBucket[nextBucket.length - 1] = size;
+            return new Snapshot(nextVersion, size + 1, examsByPosition.with(size, exam), positionsByIdHash.with(hash, nextBucket));
+        }
+
+        private int positionOf(final long id) {
+            final long[] bucket = positionsByIdHash.get(hash(id));
+            if (bucket != null) {
+                for (int i = 0; i < bucket.length; i += 2) {
+                    if (bucket[i] == id) {
+                        return (int) bucket[i + 1];
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private static int hash(final long id) {
+            final long mixed = id * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.etamburini.mockitoapp.example.catalogs;
+
+import java.util.function.Predicate;
+
+// Persistent 32-way radix trie over the int keys, an update copies only the 7 nodes of the path of its key
+final class IntTrie<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final int ROOT_SHIFT = 30;
+
+    private static final IntTrie<?> EMPTY = new IntTrie<>(new Object[WIDTH]);
+
+    private final Object[] root;
+
+    private IntTrie(final Object[] root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> IntTrie<T> empty() {
+        return (IntTrie<T>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(final int key) {
+        Object[] node = root;
+        for (int shift = ROOT_SHIFT; shift > 0; shift -= BITS) {
+            node = (Object[]) node[(key >>> shift) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (T) node[key & MASK];
+    }
+
+    IntTrie<T> with(final int key, final T value) {
+        return new IntTrie<>(with(root, ROOT_SHIFT, key, value));
+    }
+
+    // The values are visited in the unsigned order of their keys, it returns true when the predicate stopped the visit
+    boolean visitUntil(final Predicate<T> predicate) {
+        return visitUntil(root, ROOT_SHIFT, predicate);
+    }
+
+    private static Object[] with(final Object[] node, final int shift, final int key, final Object value) {
+        final Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        final int index = (key >>> shift) & MASK;
+        copy[index] = shift == 0 ? value : with((Object[]) copy[index], shift - BITS, key, value);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> boolean visitUntil(final Object[] node, final int shift, final Predicate<T> predicate) {
+        for (Object child : node) {
+            if (child == null) {
+                continue;
+            }
+            if (shift == 0 ? predicate.test((T) child) : visitUntil((Object[]) child, shift - BITS, predicate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
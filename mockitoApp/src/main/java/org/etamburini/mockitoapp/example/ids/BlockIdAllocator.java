@@ -0,0 +1,167 @@
+package org.etamburini.mockitoapp.example.ids;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32C;
+
+public class BlockIdAllocator implements IdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+    public static final long DEFAULT_LEASE_SIZE = 1L << 20;
+
+    private static final int MARK_SIZE = Long.BYTES + Integer.BYTES;
+
+    private final Path highWaterMark;
+    private final int blockSize;
+    private final long leaseSize;
+    private final AtomicLong nextBlock;
+    // Every thread takes its ids from the block of one stripe, so a short lived or virtual thread leaves no block behind
+    private final AtomicReferenceArray<Block> stripes;
+    // Every id below the limit can be handed out, the persisted mark is never below it
+    private volatile long limit;
+
+    public BlockIdAllocator() {
+        this(null, 1L, DEFAULT_BLOCK_SIZE, DEFAULT_LEASE_SIZE);
+    }
+
+    public BlockIdAllocator(final Path highWaterMark) {
+        this(highWaterMark, 1L, DEFAULT_BLOCK_SIZE, DEFAULT_LEASE_SIZE);
+    }
+
+    public BlockIdAllocator(final Path highWaterMark, final long firstId, final int blockSize, final long leaseSize) {
+        this(highWaterMark, firstId, blockSize, leaseSize, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public BlockIdAllocator(final Path highWaterMark, final long firstId, final int blockSize, final long leaseSize, final int stripes) {
+        if (blockSize <= 0 || leaseSize < blockSize) {
+            throw new IllegalArgumentException("The lease must hold at least one block");
+        }
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("The allocator needs at least one stripe");
+        }
+        this.highWaterMark = highWaterMark;
+        this.blockSize = blockSize;
+        this.leaseSize = leaseSize;
+        // After a restart the ids start at the persisted mark, the ids of the unfinished blocks are skipped
+        final long start = Math.max(firstId, highWaterMark == null ? firstId : readMark(highWaterMark));
+        this.nextBlock = new AtomicLong(start);
+        // Rounded up to a power of two, so the stripe of a thread is a mask of its hash
+        this.stripes = new AtomicReferenceArray<>(Integer.highestOneBit(stripes * 2 - 1));
+        this.limit = highWaterMark == null ? Long.MAX_VALUE : start;
+    }
+
+    // A thread always uses the same stripe, so its ids grow. The blocks of a stripe are claimed one after the other,
+    // a thread that loses the race to replace an exhausted block drops the block it claimed and takes the new one.
+    @Override
+    public long nextId() {
+        final int stripe = stripeOf(Thread.currentThread());
+        while (true) {
+            final Block block = stripes.get(stripe);
+            if (block != null) {
+                final long id = block.next.getAndIncrement();
+                if (id < block.end) {
+                    return id;
+                }
+            }
+            final long start = nextBlock.getAndAdd(blockSize);
+            final long end = start + blockSize;
+            if (end > limit) {
+                extendLease(end);
+            }
+            if (stripes.compareAndSet(stripe, block, new Block(start + 1, end))) {
+                return start;
+            }
+        }
+    }
+
+    @Override
+    public void skipTo(final long id) {
+        long current = nextBlock.get();
+        while (current <= id && !nextBlock.compareAndSet(current, id + 1)) {
+            current = nextBlock.get();
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getStripes() {
+        return stripes.length();
+    }
+
+    private int stripeOf(final Thread thread) {
+        final long hash = thread.threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (stripes.length() - 1);
+    }
+
+    private synchronized void extendLease(final long end) {
+        if (end <= limit) {
+            return;
+        }
+        final long newLimit = Math.max(end, limit + leaseSize);
+        writeMark(highWaterMark, newLimit);
+        limit = newLimit;
+    }
+
+    private static long readMark(final Path path) {
+        if (!Files.exists(path)) {
+            return 0L;
+        }
+        try {
+            final ByteBuffer mark = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (mark.remaining() != MARK_SIZE) {
+                throw new IllegalStateException("The high water mark " + path + " is corrupted");
+            }
+            final long value = mark.getLong(0);
+            final CRC32C checksum = new CRC32C();
+            checksum.update(mark.slice(0, Long.BYTES));
+            if ((int) checksum.getValue() != mark.getInt(Long.BYTES)) {
+                throw new IllegalStateException("The high water mark " + path + " is corrupted");
+            }
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The mark is written to a temporary file and moved over the old one, so a crash leaves one of the two marks
+    private static void writeMark(final Path path, final long value) {
+        final ByteBuffer mark = ByteBuffer.allocate(MARK_SIZE).putLong(value);
+        final CRC32C checksum = new CRC32C();
+        checksum.update(mark.array(), 0, Long.BYTES);
+        mark.putInt((int) checksum.getValue()).flip();
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (mark.hasRemaining()) {
+                    channel.write(mark);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(final long next, final long end) {
+            this.next = new AtomicLong(next);
+            this.end = end;
+        }
+    }
+}
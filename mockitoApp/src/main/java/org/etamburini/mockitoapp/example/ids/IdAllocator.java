@@ -0,0 +1,8 @@
+package org.etamburini.mockitoapp.example.ids;
+
+public interface IdAllocator {
+    long nextId();
+
+    // The blocks claimed after this call only have ids bigger than the given one
+    void skipTo(final long id);
+}
@@ -0,0 +1,194 @@
+package org.etamburini.mockitoapp.example.indexes;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class ExamNameIndex {
+    private static final int GRAM = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // The position of an exam is its order in the repository, so the first match keeps the stream scan semantics
+    private final List<Exam> exams = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<Long, Integer> positionsById = new HashMap<>();
+    private final Map<Long, Postings> postingsByGram = new HashMap<>();
+
+    public ExamNameIndex() {
+    }
+
+    public ExamNameIndex(final Collection<Exam> exams) {
+        exams.forEach(this::add);
+    }
+
+    public void add(final Exam exam) {
+        lock.writeLock().lock();
+        try {
+            final Integer position = exam.getId() == null ? null : positionsById.get(exam.getId());
+            if (position == null) {
+                append(exam);
+            } else {
+                replace(position, exam);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Exam> findFirstContaining(final String query) {
+        lock.readLock().lock();
+        try {
+            if (query.length() < GRAM) {
+                return scan(query);
+            }
+
+            final Postings[] candidates = postingsOf(query);
+            if (candidates == null) {
+                return Optional.empty();
+            }
+            final Postings shortest = candidates[0];
+            final int[] cursors = new int[candidates.length];
+            for (int i = 0; i < shortest.size; i++) {
+                final int position = shortest.values[i];
+                if (containedInAll(candidates, cursors, position) && names.get(position).contains(query)) {
+                    return Optional.of(exams.get(position));
+                }
+            }
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return exams.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void append(final Exam exam) {
+        final int position = exams.size();
+        exams.add(exam);
+        names.add(exam.getName());
+        if (exam.getId() != null) {
+            positionsById.put(exam.getId(), position);
+        }
+        for (long gram : gramsOf(exam.getName())) {
+            postingsByGram.computeIfAbsent(gram, key -> new Postings()).insert(position);
+        }
+    }
+
+    private void replace(final int position, final Exam exam) {
+        for (long gram : gramsOf(names.get(position))) {
+            final Postings postings = postingsByGram.get(gram);
+            postings.remove(position);
+            if (postings.size == 0) {
+                postingsByGram.remove(gram);
+            }
+        }
+        exams.set(position, exam);
+        names.set(position, exam.getName());
+        for (long gram : gramsOf(exam.getName())) {
+            postingsByGram.computeIfAbsent(gram, key -> new Postings()).insert(position);
+        }
+    }
+
+    private Optional<Exam> scan(final String query) {
+        for (int position = 0; position < names.size(); position++) {
+            final String name = names.get(position);
+            if (name != null && name.contains(query)) {
+                return Optional.of(exams.get(position));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Postings[] postingsOf(final String query) {
+        final Set<Long> grams = gramsOf(query);
+        final Postings[] candidates = new Postings[grams.size()];
+        int i = 0;
+        for (long gram : grams) {
+            final Postings postings = postingsByGram.get(gram);
+            if (postings == null) {
+                return null;
+            }
+            candidates[i++] = postings;
+        }
+        Arrays.sort(candidates, (first, second) -> Integer.compare(first.size, second.size));
+        return candidates;
+    }
+
+    // The candidates of the shortest list are visited in order, so the cursors of the other lists only move forward
+    private static boolean containedInAll(final Postings[] candidates, final int[] cursors, final int position) {
+        for (int i = 1; i < candidates.length; i++) {
+            final Postings postings = candidates[i];
+            final int index = Arrays.binarySearch(postings.values, cursors[i], postings.size, position);
+            if (index < 0) {
+                cursors[i] = -index - 1;
+                return false;
+            }
+            cursors[i] = index;
+        }
+        return true;
+    }
+
+    private static Set<Long> gramsOf(final String name) {
+        final Set<Long> grams = new LinkedHashSet<>();
+        if (name == null) {
+            return grams;
+        }
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            grams.add(((long) name.charAt(i) << 32) | ((long) name.charAt(i + 1) << 16) | name.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static final class Postings {
+        private int[] values = new int[4];
+        private int size;
+
+        private void insert(final int position) {
+            if (size > 0 && values[size - 1] < position) {
+                ensureCapacity();
+                values[size++] = position;
+                return;
+            }
+            final int index = Arrays.binarySearch(values, 0, size, position);
+            if (index >= 0) {
+                return;
+            }
+            final int insertion = -index - 1;
+            ensureCapacity();
+            System.arraycopy(values, insertion, values, insertion + 1, size - insertion);
+            values[insertion] = position;
+            size++;
+        }
+
+        private void remove(final int position) {
+            final int index = Arrays.binarySearch(values, 0, size, position);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+    }
+}
@@ -1,17 +1,22 @@
 package org.etamburini.mockitoapp.example.models;
 
+import org.etamburini.mockitoapp.example.questions.QuestionPool;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class Exam {
     private Long id;
     private String name;
-    private List<String> questions;
+    private volatile List<String> questions;
+    private QuestionPool questionPool;
+    private int[] questionIds;
+    private volatile Supplier<List<String>> questionLoader;
 
     public Exam(Long id, String name) {
         this.id = id;
         this.name = name;
-        this.questions = new ArrayList<>();
     }
 
     public Long getId() {
@@ -30,11 +35,72 @@ public class Exam {
         this.name = name;
     }
 
+    // The list is created the first time it is needed, the pooled questions are a read only view of the pool
     public List<String> getQuestions() {
-        return questions;
+        final List<String> current = questions;
+        if (current != null && questionLoader == null) {
+            return current;
+        }
+        return loadQuestions();
     }
 
     public void setQuestions(List<String> questions) {
         this.questions = questions;
+        this.questionPool = null;
+        this.questionIds = null;
+        this.questionLoader = null;
+    }
+
+    // The loader runs once, on the first getQuestions, a loader that fails runs again on the next one
+    public void setQuestionLoader(Supplier<List<String>> questionLoader) {
+        this.questions = null;
+        this.questionPool = null;
+        this.questionIds = null;
+        this.questionLoader = questionLoader;
+    }
+
+    public boolean isQuestionsLoaded() {
+        return questionLoader == null;
+    }
+
+    // The questions of a prefetch are only taken when the loader did not run yet
+    public synchronized boolean completeQuestions(List<String> questions) {
+        if (questionLoader == null) {
+            return false;
+        }
+        this.questions = questions;
+        this.questionLoader = null;
+        return true;
+    }
+
+    // A new exam with the same id and name, the repositories can share this exam between callers
+    public Exam withQuestions(List<String> questions) {
+        final Exam exam = new Exam(id, name);
+        exam.setQuestions(questions);
+        return exam;
+    }
+
+    public int[] getQuestionIds() {
+        return questionIds;
+    }
+
+    public void setQuestionIds(QuestionPool questionPool, int[] questionIds) {
+        this.questions = null;
+        this.questionPool = questionPool;
+        this.questionIds = questionIds;
+        this.questionLoader = null;
+    }
+
+    // The callers that find no list create it under the lock, so they all get the same one
+    private synchronized List<String> loadQuestions() {
+        final Supplier<List<String>> loader = questionLoader;
+        if (loader != null) {
+            questions = loader.get();
+            questionLoader = null;
+        }
+        if (questions == null) {
+            questions = questionIds == null ? new ArrayList<>() : questionPool.view(questionIds);
+        }
+        return questions;
     }
 }
@@ -0,0 +1,78 @@
+package org.etamburini.mockitoapp.example.questions;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class PooledQuestionRepository implements QuestionRepository {
+    private final QuestionPool pool;
+    // The questions saved without an exam are under the null key
+    private final Map<Long, int[]> questionIdsByExamId = new HashMap<>();
+
+    public PooledQuestionRepository() {
+        this(new QuestionPool());
+    }
+
+    public PooledQuestionRepository(final QuestionPool pool) {
+        this.pool = pool;
+    }
+
+    public QuestionPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public List<String> findQuestionsByExamId(final Long id) {
+        return pool.view(findQuestionIdsByExamId(id));
+    }
+
+    @Override
+    public Map<Long, List<String>> findQuestionsByExamIds(final Collection<Long> ids) {
+        final Map<Long, List<String>> questionsByExamId = new HashMap<>();
+        ids.forEach(id -> questionsByExamId.put(id, findQuestionsByExamId(id)));
+        return questionsByExamId;
+    }
+
+    public synchronized int[] findQuestionIdsByExamId(final Long id) {
+        return Objects.requireNonNullElse(questionIdsByExamId.get(id), new int[0]);
+    }
+
+    // The exam only keeps the ids, the questions are read from the pool when the exam needs them
+    public void loadQuestions(final Exam exam) {
+        exam.setQuestionIds(pool, findQuestionIdsByExamId(exam.getId()));
+    }
+
+    @Override
+    public void saveQuestions(final List<String> questions) {
+        saveQuestions(null, questions);
+    }
+
+    @Override
+    public boolean savesQuestionsByExamId() {
+        return true;
+    }
+
+    // The questions of an exam replace the ones saved before like in FileQuestionRepository, the questions saved
+    // without an exam are all kept
+    @Override
+    public void saveQuestions(final Long examId, final List<String> questions) {
+        final int[] added = pool.intern(questions);
+        synchronized (this) {
+            if (examId != null) {
+                questionIdsByExamId.put(examId, added);
+                return;
+            }
+            questionIdsByExamId.merge(null, added, (saved, more) -> {
+                final int[] all = Arrays.copyOf(saved, saved.length + more.length);
+                System.arraycopy(more, 0, all, saved.length, more.length);
+                return all;
+            });
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.etamburini.mockitoapp.example.questions;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Every different question text is kept once and the exams reference it by its int id
+public class QuestionPool {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] texts = new String[64];
+    private int size;
+
+    public int intern(final String question) {
+        final Integer id = ids.get(question);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            final Integer current = ids.get(question);
+            if (current != null) {
+                return current;
+            }
+            // The text is written before the array is published and the id is published last,
+            // so a reader that sees the array written by this call or the id also sees the text
+            final String[] array = size == texts.length ? Arrays.copyOf(texts, size * 2) : texts;
+            array[size] = question;
+            texts = array;
+            ids.put(question, size);
+            return size++;
+        }
+    }
+
+    public int[] intern(final List<String> questions) {
+        final int[] questionIds = new int[questions.size()];
+        for (int i = 0; i < questionIds.length; i++) {
+            questionIds[i] = intern(questions.get(i));
+        }
+        return questionIds;
+    }
+
+    public String get(final int id) {
+        final String[] current = texts;
+        if (id >= 0 && id < current.length && current[id] != null) {
+            return current[id];
+        }
+
+        // The id was handed over without publishing the text, the lock waits for the intern that returned it
+        synchronized (this) {
+            return texts[Objects.checkIndex(id, size)];
+        }
+    }
+
+    public List<String> view(final int[] questionIds) {
+        return new PooledQuestions(this, questionIds);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static final class PooledQuestions extends AbstractList<String> implements RandomAccess {
+        private final QuestionPool pool;
+        private final int[] questionIds;
+
+        private PooledQuestions(final QuestionPool pool, final int[] questionIds) {
+            this.pool = pool;
+            this.questionIds = questionIds;
+        }
+
+        @Override
+        public String get(final int index) {
+            return pool.get(questionIds[index]);
+        }
+
+        @Override
+        public int size() {
+            return questionIds.length;
+        }
+    }
+}
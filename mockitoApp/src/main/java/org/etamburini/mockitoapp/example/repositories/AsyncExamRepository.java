@@ -0,0 +1,18 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncExamRepository {
+    CompletableFuture<List<Exam>> findAll();
+
+    default CompletableFuture<Optional<Exam>> findById(final Long id) {
+        return findAll().thenApply(exams -> exams.stream().filter(exam -> Objects.equals(exam.getId(), id)).findFirst());
+    }
+
+    CompletableFuture<Exam> save(final Exam exam);
+}
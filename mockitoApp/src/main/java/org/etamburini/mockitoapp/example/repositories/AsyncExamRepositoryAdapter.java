@@ -0,0 +1,35 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+public class AsyncExamRepositoryAdapter implements AsyncExamRepository {
+    // The blocking repositories park a virtual thread instead of a pooled one
+    static final Executor VIRTUAL_THREADS = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("repository-", 0).factory());
+
+    private final ExamRepository examRepository;
+    private final Executor executor;
+
+    public AsyncExamRepositoryAdapter(final ExamRepository examRepository) {
+        this(examRepository, VIRTUAL_THREADS);
+    }
+
+    public AsyncExamRepositoryAdapter(final ExamRepository examRepository, final Executor executor) {
+        this.examRepository = examRepository;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<List<Exam>> findAll() {
+        return CompletableFuture.supplyAsync(examRepository::findAll, executor);
+    }
+
+    @Override
+    public CompletableFuture<Exam> save(final Exam exam) {
+        return CompletableFuture.supplyAsync(() -> examRepository.save(exam), executor);
+    }
+}
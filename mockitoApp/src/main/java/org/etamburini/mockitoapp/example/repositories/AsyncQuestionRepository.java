@@ -0,0 +1,18 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncQuestionRepository {
+    CompletableFuture<List<String>> findQuestionsByExamId(final Long id);
+
+    CompletableFuture<Void> saveQuestions(final List<String> questions);
+
+    default boolean savesQuestionsByExamId() {
+        return false;
+    }
+
+    default CompletableFuture<Void> saveQuestions(final Long examId, final List<String> questions) {
+        return saveQuestions(questions);
+    }
+}
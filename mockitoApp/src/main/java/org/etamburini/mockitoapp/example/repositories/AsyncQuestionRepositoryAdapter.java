@@ -0,0 +1,39 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public class AsyncQuestionRepositoryAdapter implements AsyncQuestionRepository {
+    private final QuestionRepository questionRepository;
+    private final Executor executor;
+
+    public AsyncQuestionRepositoryAdapter(final QuestionRepository questionRepository) {
+        this(questionRepository, AsyncExamRepositoryAdapter.VIRTUAL_THREADS);
+    }
+
+    public AsyncQuestionRepositoryAdapter(final QuestionRepository questionRepository, final Executor executor) {
+        this.questionRepository = questionRepository;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<List<String>> findQuestionsByExamId(final Long id) {
+        return CompletableFuture.supplyAsync(() -> questionRepository.findQuestionsByExamId(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveQuestions(final List<String> questions) {
+        return CompletableFuture.runAsync(() -> questionRepository.saveQuestions(questions), executor);
+    }
+
+    @Override
+    public boolean savesQuestionsByExamId() {
+        return questionRepository.savesQuestionsByExamId();
+    }
+
+    @Override
+    public CompletableFuture<Void> saveQuestions(final Long examId, final List<String> questions) {
+        return CompletableFuture.runAsync(() -> questionRepository.saveQuestions(examId, questions), executor);
+    }
+}
@@ -0,0 +1,152 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+public class CachingExamRepository implements ExamRepository {
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    public static final int DEFAULT_MAX_SIZE = 100_000;
+
+    private final ExamRepository examRepository;
+    private final long ttlNanos;
+    private final long refreshAheadNanos;
+    private final int maxSize;
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final AtomicReference<CachedExams> cachedExams = new AtomicReference<>();
+    private final AtomicReference<Load> loading = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingExamRepository(final ExamRepository examRepository) {
+        this(examRepository, DEFAULT_TTL, 0.8, DEFAULT_MAX_SIZE, ForkJoinPool.commonPool(), System::nanoTime);
+    }
+
+    public CachingExamRepository(final ExamRepository examRepository, final Duration ttl, final double refreshAheadFactor,
+                                 final int maxSize, final Executor executor, final LongSupplier clock) {
+        if (refreshAheadFactor <= 0 || refreshAheadFactor > 1) {
+            throw new IllegalArgumentException("The refresh ahead factor must be between 0 and 1");
+        }
+        this.examRepository = examRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAheadNanos = (long) (ttlNanos * refreshAheadFactor);
+        this.maxSize = maxSize;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @Override
+    public List<Exam> findAll() {
+        final CachedExams cached = cachedExams.get();
+        if (cached != null) {
+            final long age = clock.getAsLong() - cached.loadedAt();
+            if (age < ttlNanos) {
+                if (age >= refreshAheadNanos) {
+                    refreshAhead();
+                }
+                return cached.exams();
+            }
+        }
+
+        return load();
+    }
+
+    @Override
+    public Exam save(final Exam exam) {
+        try {
+            return examRepository.save(exam);
+        } finally {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        cachedExams.set(null);
+    }
+
+    // A load started before the last save is not joined, a new load replaces it
+    private List<Exam> load() {
+        while (true) {
+            final Load current = loading.get();
+            if (current != null && current.generation() == generation.get()) {
+                return join(current.future());
+            }
+
+            final Load load = new Load(generation.get(), new CompletableFuture<>());
+            if (loading.compareAndSet(current, load)) {
+                return run(load);
+            }
+        }
+    }
+
+    // The refresh is claimed before it is scheduled, so the callers that find the exams old schedule a single one
+    private void refreshAhead() {
+        if (loading.get() != null) {
+            return;
+        }
+        final Load load = new Load(generation.get(), new CompletableFuture<>());
+        if (!loading.compareAndSet(null, load)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run(load);
+                } catch (RuntimeException e) {
+                    // The current exams are still served until they expire.
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            load.future().completeExceptionally(e);
+            loading.compareAndSet(load, null);
+        }
+    }
+
+    private List<Exam> run(final Load load) {
+        try {
+            final List<Exam> exams = List.copyOf(examRepository.findAll());
+            if (exams.size() <= maxSize && generation.get() == load.generation()) {
+                final CachedExams loaded = new CachedExams(exams, clock.getAsLong());
+                cachedExams.set(loaded);
+                // A save between the check and the set must not leave these exams cached
+                if (generation.get() != load.generation()) {
+                    cachedExams.compareAndSet(loaded, null);
+                }
+            }
+            load.future().complete(exams);
+            return exams;
+        } catch (RuntimeException e) {
+            load.future().completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.compareAndSet(load, null);
+        }
+    }
+
+    private static List<Exam> join(final CompletableFuture<List<Exam>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record CachedExams(List<Exam> exams, long loadedAt) {
+    }
+
+    private record Load(long generation, CompletableFuture<List<Exam>> future) {
+    }
+}
@@ -0,0 +1,55 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.catalogs.CatalogExam;
+import org.etamburini.mockitoapp.example.catalogs.ExamCatalog;
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Every call reads one snapshot of the catalog and returns fresh exams, so the callers can change them safely
+public class CatalogExamRepository implements SearchableExamRepository, StreamingExamRepository {
+    private final ExamCatalog catalog;
+
+    public CatalogExamRepository() {
+        this(new ExamCatalog());
+    }
+
+    public CatalogExamRepository(final ExamCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public ExamCatalog getCatalog() {
+        return catalog;
+    }
+
+    @Override
+    public List<Exam> findAll() {
+        return catalog.snapshot().exams().stream().map(CatalogExam::toExam).toList();
+    }
+
+    @Override
+    public Stream<Exam> streamAll() {
+        return catalog.snapshot().exams().stream().map(CatalogExam::toExam);
+    }
+
+    @Override
+    public Optional<Exam> findFirstByName(final String name) {
+        return catalog.snapshot().findFirstByName(name).map(CatalogExam::toExam);
+    }
+
+    public Optional<Exam> findById(final long id) {
+        return catalog.snapshot().findById(id).map(CatalogExam::toExam);
+    }
+
+    @Override
+    public Exam save(final Exam exam) {
+        return catalog.save(exam).toExam();
+    }
+
+    @Override
+    public List<Exam> saveAll(final List<Exam> exams) {
+        return catalog.saveAll(exams).stream().map(CatalogExam::toExam).toList();
+    }
+}
@@ -2,9 +2,24 @@ package org.etamburini.mockitoapp.example.repositories;
 
 import org.etamburini.mockitoapp.example.models.Exam;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public interface ExamRepository {
     List<Exam> findAll();
     Exam save(final Exam exam);
+
+    default List<Exam> saveAll(final List<Exam> exams) {
+        final List<Exam> saved = new ArrayList<>(exams.size());
+        for (Exam exam : exams) {
+            saved.add(save(exam));
+        }
+        return saved;
+    }
+
+    // The biggest id of the saved exams, 0 when there is none
+    default long maxId() {
+        return findAll().stream().map(Exam::getId).filter(Objects::nonNull).mapToLong(Long::longValue).max().orElse(0L);
+    }
 }
@@ -0,0 +1,138 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.etamburini.mockitoapp.example.ids.IdAllocator;
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class FileExamRepository implements StreamingExamRepository, AutoCloseable {
+    private static final int NULL_NAME = -1;
+
+    private final MappedRecordFile file;
+    private final IdAllocator idAllocator;
+    // The last record of every exam, in the order the exams were saved for the first time
+    private final Map<Long, Long> offsetsById = new LinkedHashMap<>();
+
+    public FileExamRepository(final Path path) {
+        this(path, new BlockIdAllocator(path.resolveSibling(path.getFileName() + ".ids")));
+    }
+
+    public FileExamRepository(final Path path, final IdAllocator idAllocator) {
+        this.file = new MappedRecordFile(path);
+        this.idAllocator = idAllocator;
+        file.forEach((offset, payload) -> offsetsById.put(payload.getLong(0), offset));
+        offsetsById.keySet().stream().mapToLong(Long::longValue).max().ifPresent(idAllocator::skipTo);
+    }
+
+    @Override
+    public List<Exam> findAll() {
+        final long[] offsets = offsets();
+        final List<Exam> exams = new ArrayList<>(offsets.length);
+        for (long offset : offsets) {
+            exams.add(decode(file.read(offset)));
+        }
+
+        return exams;
+    }
+
+    // Only the offsets are copied, every exam is decoded from the mapping when the stream reaches it
+    @Override
+    public Stream<Exam> streamAll() {
+        return Arrays.stream(offsets()).mapToObj(offset -> decode(file.read(offset)));
+    }
+
+    public Optional<Exam> findById(final Long id) {
+        final Long offset;
+        synchronized (this) {
+            offset = offsetsById.get(id);
+        }
+
+        return offset == null ? Optional.empty() : Optional.of(decode(file.read(offset)));
+    }
+
+    // An exam without id gets a new one, an exam with a saved id is replaced
+    @Override
+    public synchronized Exam save(final Exam exam) {
+        assignId(exam);
+        offsetsById.put(exam.getId(), file.append(encode(exam)));
+
+        return exam;
+    }
+
+    @Override
+    public synchronized List<Exam> saveAll(final List<Exam> exams) {
+        final List<ByteBuffer> payloads = new ArrayList<>(exams.size());
+        for (Exam exam : exams) {
+            assignId(exam);
+            payloads.add(encode(exam));
+        }
+        final long[] offsets = file.appendAll(payloads);
+        for (int i = 0; i < offsets.length; i++) {
+            offsetsById.put(exams.get(i).getId(), offsets[i]);
+        }
+
+        return exams;
+    }
+
+    @Override
+    public synchronized long maxId() {
+        return offsetsById.keySet().stream().mapToLong(Long::longValue).max().orElse(0L);
+    }
+
+    public synchronized int size() {
+        return offsetsById.size();
+    }
+
+    @Override
+    public void close() {
+        file.close();
+    }
+
+    private void assignId(final Exam exam) {
+        if (exam.getId() == null) {
+            long id;
+            do {
+                // A block claimed before an exam was saved with an explicit id can still hold that id
+                id = idAllocator.nextId();
+            } while (offsetsById.containsKey(id));
+            exam.setId(id);
+        } else {
+            idAllocator.skipTo(exam.getId());
+        }
+    }
+
+    private synchronized long[] offsets() {
+        return offsetsById.values().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static ByteBuffer encode(final Exam exam) {
+        final byte[] name = exam.getName() == null ? new byte[0] : exam.getName().getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer payload = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + name.length);
+        payload.putLong(exam.getId()).putInt(exam.getName() == null ? NULL_NAME : name.length).put(name).flip();
+
+        return payload;
+    }
+
+    private static Exam decode(final ByteBuffer payload) {
+        final long id = payload.getLong(0);
+        final int nameSize = payload.getInt(Long.BYTES);
+        String name = null;
+        if (nameSize != NULL_NAME) {
+            final byte[] bytes = new byte[nameSize];
+            payload.get(Long.BYTES + Integer.BYTES, bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return new Exam(id, name);
+    }
+}
@@ -0,0 +1,130 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FileQuestionRepository implements QuestionRepository, AutoCloseable {
+    private static final byte NO_EXAM = 0;
+    private static final byte EXAM = 1;
+
+    private final MappedRecordFile file;
+    // Every saveQuestions is a record, the last record of an exam replaces the previous ones like in FileExamRepository,
+    // the null key keeps every list of questions saved without an exam
+    private final Map<Long, List<Long>> offsetsByExamId = new HashMap<>();
+
+    public FileQuestionRepository(final Path path) {
+        this.file = new MappedRecordFile(path);
+        file.forEach((offset, payload) -> index(examIdOf(payload), offset));
+    }
+
+    @Override
+    public List<String> findQuestionsByExamId(final Long id) {
+        final long[] offsets;
+        synchronized (this) {
+            offsets = offsetsOf(id);
+        }
+
+        return decode(offsets);
+    }
+
+    @Override
+    public Map<Long, List<String>> findQuestionsByExamIds(final Collection<Long> ids) {
+        final Map<Long, long[]> offsets = new HashMap<>();
+        synchronized (this) {
+            ids.forEach(id -> offsets.put(id, offsetsOf(id)));
+        }
+        final Map<Long, List<String>> questionsByExamId = new HashMap<>();
+        offsets.forEach((id, examOffsets) -> questionsByExamId.put(id, decode(examOffsets)));
+
+        return questionsByExamId;
+    }
+
+    @Override
+    public void saveQuestions(final List<String> questions) {
+        saveQuestions(null, questions);
+    }
+
+    @Override
+    public boolean savesQuestionsByExamId() {
+        return true;
+    }
+
+    @Override
+    public synchronized void saveQuestions(final Long examId, final List<String> questions) {
+        index(examId, file.append(encode(examId, questions)));
+    }
+
+    @Override
+    public synchronized void saveAllQuestions(final Map<Long, List<String>> questionsByExamId) {
+        final List<Long> examIds = new ArrayList<>(questionsByExamId.size());
+        final List<ByteBuffer> payloads = new ArrayList<>(questionsByExamId.size());
+        questionsByExamId.forEach((examId, questions) -> {
+            examIds.add(examId);
+            payloads.add(encode(examId, questions));
+        });
+        final long[] offsets = file.appendAll(payloads);
+        for (int i = 0; i < offsets.length; i++) {
+            index(examIds.get(i), offsets[i]);
+        }
+    }
+
+    @Override
+    public void close() {
+        file.close();
+    }
+
+    private void index(final Long examId, final long offset) {
+        if (examId == null) {
+            offsetsByExamId.computeIfAbsent(null, key -> new ArrayList<>()).add(offset);
+        } else {
+            offsetsByExamId.put(examId, List.of(offset));
+        }
+    }
+
+    private long[] offsetsOf(final Long examId) {
+        final List<Long> offsets = offsetsByExamId.get(examId);
+
+        return offsets == null ? new long[0] : offsets.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private List<String> decode(final long[] offsets) {
+        final List<String> questions = new ArrayList<>();
+        for (long offset : offsets) {
+            final ByteBuffer payload = file.read(offset);
+            payload.position(Byte.BYTES + Long.BYTES);
+            final int count = payload.getInt();
+            for (int i = 0; i < count; i++) {
+                final byte[] bytes = new byte[payload.getInt()];
+                payload.get(bytes);
+                questions.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+
+        return questions;
+    }
+
+    private static ByteBuffer encode(final Long examId, final List<String> questions) {
+        final List<byte[]> encoded = new ArrayList<>(questions.size());
+        int size = Byte.BYTES + Long.BYTES + Integer.BYTES;
+        for (String question : questions) {
+            final byte[] bytes = question.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            size += Integer.BYTES + bytes.length;
+        }
+        final ByteBuffer payload = ByteBuffer.allocate(size);
+        payload.put(examId == null ? NO_EXAM : EXAM).putLong(examId == null ? 0 : examId).putInt(encoded.size());
+        encoded.forEach(bytes -> payload.putInt(bytes.length).put(bytes));
+
+        return payload.flip();
+    }
+
+    private static Long examIdOf(final ByteBuffer payload) {
+        return payload.get(0) == NO_EXAM ? null : payload.getLong(Byte.BYTES);
+    }
+}
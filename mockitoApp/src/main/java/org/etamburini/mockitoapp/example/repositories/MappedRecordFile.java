@@ -0,0 +1,168 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Append only file of [int size][int checksum][payload] records, the reads go through a read only mapping of the file
+final class MappedRecordFile implements AutoCloseable {
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    interface RecordVisitor {
+        void visit(long offset, ByteBuffer payload);
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private long size;
+    private volatile MappedByteBuffer mapping;
+    private boolean closed;
+
+    MappedRecordFile(final Path path) {
+        this.path = path;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            size = channel.size();
+            checkMappable(size);
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            final long end = endOfRecords();
+            if (end < size) {
+                // A torn record of an append that did not finish is dropped
+                channel.truncate(end);
+                channel.force(true);
+                size = end;
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    // The record is on the disk when this method returns
+    long append(final ByteBuffer payload) {
+        return appendAll(List.of(payload))[0];
+    }
+
+    // All the records are written with a single force, they are on the disk when this method returns
+    synchronized long[] appendAll(final List<ByteBuffer> payloads) {
+        if (closed) {
+            throw new IllegalStateException("The file is closed");
+        }
+        long recordsSize = 0;
+        for (ByteBuffer payload : payloads) {
+            recordsSize += HEADER_SIZE + payload.remaining();
+        }
+        checkMappable(size + recordsSize);
+        final ByteBuffer records = ByteBuffer.allocate((int) recordsSize);
+        final long[] offsets = new long[payloads.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            final ByteBuffer payload = payloads.get(i);
+            final CRC32C checksum = new CRC32C();
+            checksum.update(payload.duplicate());
+            offsets[i] = size + records.position();
+            records.putInt(payload.remaining()).putInt((int) checksum.getValue()).put(payload);
+        }
+        records.flip();
+        try {
+            long position = size;
+            while (records.hasRemaining()) {
+                position += channel.write(records, position);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size += recordsSize;
+
+        return offsets;
+    }
+
+    ByteBuffer read(final long offset) {
+        MappedByteBuffer current = mapping;
+        if (offset + HEADER_SIZE > current.capacity()) {
+            current = remap();
+        }
+        final int payloadSize = current.getInt((int) offset);
+        if (offset + HEADER_SIZE + payloadSize > current.capacity()) {
+            current = remap();
+        }
+
+        return current.slice((int) offset + HEADER_SIZE, payloadSize);
+    }
+
+    void forEach(final RecordVisitor visitor) {
+        final MappedByteBuffer current = remap();
+        int offset = 0;
+        while (offset < current.capacity()) {
+            final int payloadSize = current.getInt(offset);
+            visitor.visit(offset, current.slice(offset + HEADER_SIZE, payloadSize));
+            offset += HEADER_SIZE + payloadSize;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized MappedByteBuffer remap() {
+        if (mapping.capacity() < size) {
+            try {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return mapping;
+    }
+
+    private long endOfRecords() {
+        final MappedByteBuffer current = mapping;
+        int offset = 0;
+        while (offset + HEADER_SIZE <= current.capacity()) {
+            final int payloadSize = current.getInt(offset);
+            if (payloadSize < 0 || offset + HEADER_SIZE + (long) payloadSize > current.capacity()) {
+                break;
+            }
+            final CRC32C checksum = new CRC32C();
+            checksum.update(current.slice(offset + HEADER_SIZE, payloadSize));
+            if ((int) checksum.getValue() != current.getInt(offset + Integer.BYTES)) {
+                break;
+            }
+            offset += HEADER_SIZE + payloadSize;
+        }
+        return offset;
+    }
+
+    private static void checkMappable(final long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The file is bigger than a mapping");
+        }
+    }
+}
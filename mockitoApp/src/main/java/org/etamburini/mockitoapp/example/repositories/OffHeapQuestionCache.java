@@ -0,0 +1,340 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The question lists are encoded in direct buffers, only the small index of every segment is on the heap
+public class OffHeapQuestionCache implements QuestionRepository {
+    public static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+    public static final int DEFAULT_SEGMENTS = 16;
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    private final QuestionRepository questionRepository;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public OffHeapQuestionCache(final QuestionRepository questionRepository) {
+        this(questionRepository, DEFAULT_CAPACITY, DEFAULT_SEGMENTS, DEFAULT_BLOCK_SIZE);
+    }
+
+    public OffHeapQuestionCache(final QuestionRepository questionRepository, final long capacity, final int segments, final int blockSize) {
+        if (segments <= 0 || blockSize <= 0) {
+            throw new IllegalArgumentException("The segments and the block size must be positive");
+        }
+        final long blocksPerSegment = capacity / segments / blockSize;
+        if (blocksPerSegment <= 0 || blocksPerSegment * blockSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Every segment must hold between one block and 2 GB");
+        }
+        this.questionRepository = questionRepository;
+        this.segments = new Segment[segments];
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new Segment((int) blocksPerSegment, blockSize);
+        }
+    }
+
+    @Override
+    public List<String> findQuestionsByExamId(final Long id) {
+        if (id == null) {
+            return questionRepository.findQuestionsByExamId(null);
+        }
+        final Segment segment = segmentOf(id);
+        final byte[] cached = segment.get(id);
+        if (cached != null) {
+            hits.increment();
+            return decode(cached);
+        }
+
+        misses.increment();
+        final long generation = segment.generation();
+        final List<String> questions = questionRepository.findQuestionsByExamId(id);
+        if (questions != null) {
+            evictions.add(segment.put(id, encode(questions), generation));
+        }
+        return questions;
+    }
+
+    @Override
+    public Map<Long, List<String>> findQuestionsByExamIds(final Collection<Long> ids) {
+        final Map<Long, List<String>> questionsByExamId = new HashMap<>();
+        final Map<Long, Long> generations = new LinkedHashMap<>();
+        for (Long id : ids) {
+            final byte[] cached = id == null ? null : segmentOf(id).get(id);
+            if (cached != null) {
+                hits.increment();
+                questionsByExamId.put(id, decode(cached));
+            } else if (!generations.containsKey(id)) {
+                misses.increment();
+                generations.put(id, id == null ? 0L : segmentOf(id).generation());
+            }
+        }
+        if (generations.isEmpty()) {
+            return questionsByExamId;
+        }
+
+        final Map<Long, List<String>> loaded = questionRepository.findQuestionsByExamIds(generations.keySet());
+        loaded.forEach((id, questions) -> {
+            questionsByExamId.put(id, questions);
+            if (id != null && questions != null && generations.containsKey(id)) {
+                evictions.add(segmentOf(id).put(id, encode(questions), generations.get(id)));
+            }
+        });
+        return questionsByExamId;
+    }
+
+    // The exam of the questions is up to the repository, so no cached exam can be trusted after them
+    @Override
+    public void saveQuestions(final List<String> questions) {
+        try {
+            questionRepository.saveQuestions(questions);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public boolean savesQuestionsByExamId() {
+        return questionRepository.savesQuestionsByExamId();
+    }
+
+    @Override
+    public void saveQuestions(final Long examId, final List<String> questions) {
+        try {
+            questionRepository.saveQuestions(examId, questions);
+        } finally {
+            invalidate(examId);
+        }
+    }
+
+    @Override
+    public void saveAllQuestions(final Map<Long, List<String>> questionsByExamId) {
+        try {
+            questionRepository.saveAllQuestions(questionsByExamId);
+        } finally {
+            questionsByExamId.keySet().forEach(this::invalidate);
+        }
+    }
+
+    public void invalidate(final Long examId) {
+        if (examId != null) {
+            segmentOf(examId).remove(examId);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public CacheStats stats() {
+        long usedBytes = 0;
+        int entries = 0;
+        for (Segment segment : segments) {
+            final ReentrantLock lock = segment.lock;
+            lock.lock();
+            try {
+                usedBytes += (long) segment.usedBlocks() * segment.blockSize;
+                entries += segment.probation.size() + segment.protectedEntries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries, usedBytes);
+    }
+
+    private Segment segmentOf(final long id) {
+        final long mixed = id * 0x9E3779B97F4A7C15L;
+        return segments[(int) ((mixed >>> 32) % segments.length)];
+    }
+
+    private static byte[] encode(final List<String> questions) {
+        final List<byte[]> encoded = new ArrayList<>(questions.size());
+        int size = Integer.BYTES;
+        for (String question : questions) {
+            final byte[] bytes = question.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            size += Integer.BYTES + bytes.length;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(size).putInt(encoded.size());
+        encoded.forEach(bytes -> buffer.putInt(bytes.length).put(bytes));
+        return buffer.array();
+    }
+
+    // Every hit is decoded in a new list, so the callers can change it
+    private static List<String> decode(final byte[] encoded) {
+        final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        final int count = buffer.getInt();
+        final List<String> questions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int size = buffer.getInt();
+            questions.add(new String(encoded, buffer.position(), size, StandardCharsets.UTF_8));
+            buffer.position(buffer.position() + size);
+        }
+        return questions;
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int entries, long usedBytes) {
+    }
+
+    private record Slot(int[] blocks, int size) {
+    }
+
+    // Segmented LRU: a new entry starts in probation, a hit moves it to the protected part, the evictions take probation first
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ByteBuffer memory;
+        private final int blockSize;
+        private final int protectedBlocks;
+        private final int[] freeBlocks;
+        private int freeCount;
+        private int protectedUsed;
+        private long generation;
+        private final LinkedHashMap<Long, Slot> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Long, Slot> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(final int blocks, final int blockSize) {
+            this.memory = ByteBuffer.allocateDirect(blocks * blockSize);
+            this.blockSize = blockSize;
+            this.protectedBlocks = blocks * 4 / 5;
+            this.freeBlocks = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                freeBlocks[i] = blocks - 1 - i;
+            }
+            this.freeCount = blocks;
+        }
+
+        private byte[] get(final long id) {
+            lock.lock();
+            try {
+                Slot slot = protectedEntries.get(id);
+                if (slot == null) {
+                    slot = probation.remove(id);
+                    if (slot == null) {
+                        return null;
+                    }
+                    protectedEntries.put(id, slot);
+                    protectedUsed += slot.blocks().length;
+                    demoteProtected();
+                }
+                return read(slot);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long generation() {
+            lock.lock();
+            try {
+                return generation;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // It returns the number of evicted entries, the entry is not cached when the segment changed since the given generation
+        private int put(final long id, final byte[] encoded, final long loadedGeneration) {
+            final int needed = (encoded.length + blockSize - 1) / blockSize;
+            lock.lock();
+            try {
+                if (loadedGeneration != generation || needed > freeBlocks.length) {
+                    return 0;
+                }
+                release(id);
+                int evicted = 0;
+                while (freeCount < needed) {
+                    evictEldest();
+                    evicted++;
+                }
+                final int[] blocks = new int[needed];
+                for (int i = 0; i < needed; i++) {
+                    blocks[i] = freeBlocks[--freeCount];
+                    final int offset = i * blockSize;
+                    memory.put(blocks[i] * blockSize, encoded, offset, Math.min(blockSize, encoded.length - offset));
+                }
+                probation.put(id, new Slot(blocks, encoded.length));
+                return evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(final long id) {
+            lock.lock();
+            try {
+                generation++;
+                release(id);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                generation++;
+                for (Long id : new ArrayList<>(probation.keySet())) {
+                    release(id);
+                }
+                for (Long id : new ArrayList<>(protectedEntries.keySet())) {
+                    release(id);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int usedBlocks() {
+            return freeBlocks.length - freeCount;
+        }
+
+        private byte[] read(final Slot slot) {
+            final byte[] encoded = new byte[slot.size()];
+            for (int i = 0; i < slot.blocks().length; i++) {
+                final int offset = i * blockSize;
+                memory.get(slot.blocks()[i] * blockSize, encoded, offset, Math.min(blockSize, encoded.length - offset));
+            }
+            return encoded;
+        }
+
+        private void release(final long id) {
+            Slot slot = probation.remove(id);
+            if (slot == null) {
+                slot = protectedEntries.remove(id);
+                if (slot != null) {
+                    protectedUsed -= slot.blocks().length;
+                }
+            }
+            if (slot != null) {
+                for (int block : slot.blocks()) {
+                    freeBlocks[freeCount++] = block;
+                }
+            }
+        }
+
+        private void demoteProtected() {
+            final Iterator<Map.Entry<Long, Slot>> eldest = protectedEntries.entrySet().iterator();
+            while (protectedUsed > protectedBlocks && protectedEntries.size() > 1) {
+                final Map.Entry<Long, Slot> entry = eldest.next();
+                eldest.remove();
+                protectedUsed -= entry.getValue().blocks().length;
+                probation.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        private void evictEldest() {
+            final Map<Long, Slot> victims = probation.isEmpty() ? protectedEntries : probation;
+            release(victims.keySet().iterator().next());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.etamburini.mockitoapp.example.ids.IdAllocator;
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// The exams are the ones of every shard in the shard order, so the results do not depend on which shard answers first
+public class PartitionedExamRepository implements SearchableExamRepository {
+    public interface Router {
+        int shardOf(final long id, final int shards);
+
+        static Router hash() {
+            return (id, shards) -> Math.floorMod(Long.hashCode(id), shards);
+        }
+
+        // The shard i has the ids lower than upperBounds[i], the last shard has the rest
+        static Router range(final int shardCount, final long... upperBounds) {
+            final long[] bounds = upperBounds.clone();
+            if (bounds.length != shardCount - 1) {
+                throw new IllegalArgumentException("There must be an upper bound less than shards");
+            }
+            for (int i = 1; i < bounds.length; i++) {
+                if (bounds[i] <= bounds[i - 1]) {
+                    throw new IllegalArgumentException("The upper bounds must grow");
+                }
+            }
+            return (id, shards) -> {
+                if (shards != shardCount) {
+                    throw new IllegalStateException("The router splits the ids between " + shardCount + " shards");
+                }
+                final int index = Arrays.binarySearch(bounds, id);
+                return index >= 0 ? index + 1 : -index - 1;
+            };
+        }
+    }
+
+    private final List<ExamRepository> shards;
+    private final Router router;
+    private final IdAllocator idAllocator;
+    private final Executor executor;
+    // The own allocator goes on after the biggest id of every shard, the shards are only asked for it
+    // when the first exam without id is saved
+    private volatile boolean idsSeeded;
+
+    public PartitionedExamRepository(final List<ExamRepository> shards) {
+        this(shards, Router.hash(), new BlockIdAllocator(), AsyncExamRepositoryAdapter.VIRTUAL_THREADS, false);
+    }
+
+    public PartitionedExamRepository(final List<ExamRepository> shards, final Router router, final IdAllocator idAllocator, final Executor executor) {
+        this(shards, router, idAllocator, executor, true);
+    }
+
+    private PartitionedExamRepository(final List<ExamRepository> shards, final Router router, final IdAllocator idAllocator,
+                                      final Executor executor, final boolean idsSeeded) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least one shard");
+        }
+        this.shards = List.copyOf(shards);
+        this.router = router;
+        this.idAllocator = idAllocator;
+        this.executor = executor;
+        this.idsSeeded = idsSeeded;
+    }
+
+    public List<ExamRepository> getShards() {
+        return shards;
+    }
+
+    @Override
+    public List<Exam> findAll() {
+        final List<CompletableFuture<List<Exam>>> futures = new ArrayList<>(shards.size());
+        for (ExamRepository shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(shard::findAll, executor));
+        }
+        final List<Exam> exams = new ArrayList<>();
+        for (CompletableFuture<List<Exam>> future : futures) {
+            exams.addAll(join(future));
+        }
+
+        return exams;
+    }
+
+    @Override
+    public long maxId() {
+        final List<CompletableFuture<Long>> futures = new ArrayList<>(shards.size());
+        for (ExamRepository shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(shard::maxId, executor));
+        }
+
+        return futures.stream().mapToLong(PartitionedExamRepository::join).max().orElse(0L);
+    }
+
+    // A match of a shard is returned as soon as every previous shard has answered without one.
+    // The searches not started yet are cancelled and the scans stop at their next exam,
+    // a call already running in a shard, like its findAll, still runs to the end.
+    @Override
+    public Optional<Exam> findFirstByName(final String name) {
+        final AtomicBoolean answered = new AtomicBoolean();
+        final List<CompletableFuture<Optional<Exam>>> futures = new ArrayList<>(shards.size());
+        for (ExamRepository shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> findFirstByName(shard, name, answered), executor));
+        }
+        try {
+            for (CompletableFuture<Optional<Exam>> future : futures) {
+                final Optional<Exam> exam = join(future);
+                if (exam.isPresent()) {
+                    return exam;
+                }
+            }
+            return Optional.empty();
+        } finally {
+            answered.set(true);
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    @Override
+    public Exam save(final Exam exam) {
+        assignId(exam);
+        return shardOf(exam).save(exam);
+    }
+
+    @Override
+    public List<Exam> saveAll(final List<Exam> exams) {
+        final List<List<Exam>> examsByShard = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            examsByShard.add(new ArrayList<>());
+        }
+        for (Exam exam : exams) {
+            assignId(exam);
+            examsByShard.get(shardIndexOf(exam)).add(exam);
+        }
+        final List<CompletableFuture<List<Exam>>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            final ExamRepository shard = shards.get(i);
+            final List<Exam> shardExams = examsByShard.get(i);
+            futures.add(shardExams.isEmpty()
+                    ? CompletableFuture.completedFuture(List.of())
+                    : CompletableFuture.supplyAsync(() -> shard.saveAll(shardExams), executor));
+        }
+        futures.forEach(PartitionedExamRepository::join);
+
+        return exams;
+    }
+
+    public ExamRepository shardOf(final Exam exam) {
+        return shards.get(shardIndexOf(exam));
+    }
+
+    private int shardIndexOf(final Exam exam) {
+        return router.shardOf(exam.getId(), shards.size());
+    }
+
+    // The id decides the shard, so an exam without id gets one before it is routed
+    private void assignId(final Exam exam) {
+        if (exam.getId() == null) {
+            if (!idsSeeded) {
+                seedIds();
+            }
+            exam.setId(idAllocator.nextId());
+        } else {
+            idAllocator.skipTo(exam.getId());
+        }
+    }
+
+    private synchronized void seedIds() {
+        if (!idsSeeded) {
+            idAllocator.skipTo(maxId());
+            idsSeeded = true;
+        }
+    }
+
+    private static Optional<Exam> findFirstByName(final ExamRepository shard, final String name, final AtomicBoolean answered) {
+        if (shard instanceof SearchableExamRepository searchableShard) {
+            return searchableShard.findFirstByName(name);
+        }
+        if (shard instanceof StreamingExamRepository streamingShard) {
+            try (Stream<Exam> exams = streamingShard.streamAll()) {
+                return findFirstByName(exams, name, answered);
+            }
+        }
+        return findFirstByName(shard.findAll().stream(), name, answered);
+    }
+
+    private static Optional<Exam> findFirstByName(final Stream<Exam> exams, final String name, final AtomicBoolean answered) {
+        return exams.takeWhile(exam -> !answered.get()).filter(exam -> exam.getName().contains(name)).findFirst();
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -2,10 +2,34 @@ package org.etamburini.mockitoapp.example.repositories;
 
 import org.etamburini.mockitoapp.example.models.Exam;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface QuestionRepository {
     List<String> findQuestionsByExamId(final Long id);
 
+    default Map<Long, List<String>> findQuestionsByExamIds(final Collection<Long> ids) {
+        final Map<Long, List<String>> questionsByExamId = new HashMap<>();
+        for (Long id : ids) {
+            questionsByExamId.put(id, findQuestionsByExamId(id));
+        }
+        return questionsByExamId;
+    }
+
     void saveQuestions(final List<String> questions);
+
+    // The repositories that keep the questions by exam id, the other ones drop the id of saveQuestions
+    default boolean savesQuestionsByExamId() {
+        return false;
+    }
+
+    default void saveQuestions(final Long examId, final List<String> questions) {
+        saveQuestions(questions);
+    }
+
+    default void saveAllQuestions(final Map<Long, List<String>> questionsByExamId) {
+        questionsByExamId.forEach(this::saveQuestions);
+    }
 }
@@ -2,7 +2,10 @@ package org.etamburini.mockitoapp.example.repositories;
 
 import org.etamburini.mockitoapp.example.Data;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class QuestionRepositoryImpl implements QuestionRepository{
     @Override
@@ -10,6 +13,13 @@ public class QuestionRepositoryImpl implements QuestionRepository{
         return Data.REAL_QUESTIONS;
     }
 
+    @Override
+    public Map<Long, List<String>> findQuestionsByExamIds(Collection<Long> ids) {
+        final Map<Long, List<String>> questionsByExamId = new HashMap<>();
+        ids.forEach(id -> questionsByExamId.put(id, Data.REAL_QUESTIONS));
+        return questionsByExamId;
+    }
+
     @Override
     public void saveQuestions(List<String> questions) {
 
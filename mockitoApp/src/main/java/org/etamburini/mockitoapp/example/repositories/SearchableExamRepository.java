@@ -0,0 +1,10 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.Optional;
+
+public interface SearchableExamRepository extends ExamRepository {
+    // The first exam of findAll whose name contains the given one
+    Optional<Exam> findFirstByName(final String name);
+}
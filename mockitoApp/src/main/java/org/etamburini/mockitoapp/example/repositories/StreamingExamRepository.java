@@ -0,0 +1,10 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.util.stream.Stream;
+
+public interface StreamingExamRepository extends ExamRepository {
+    // The exams are read while the stream is consumed, in the same order than findAll
+    Stream<Exam> streamAll();
+}
@@ -0,0 +1,31 @@
+package org.etamburini.mockitoapp.example.services;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public interface AsyncExamService {
+    CompletableFuture<Optional<Exam>> getExamByName(final String name);
+    CompletableFuture<Exam> findExamWithQuestionsByName(final String name);
+    CompletableFuture<Exam> findExamWithQuestionsById(final Long id);
+    CompletableFuture<Exam> save(final Exam exam);
+
+    default CompletableFuture<Optional<Exam>> getExamByName(final String name, final Duration timeout) {
+        return getExamByName(name).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    default CompletableFuture<Exam> findExamWithQuestionsByName(final String name, final Duration timeout) {
+        return findExamWithQuestionsByName(name).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    default CompletableFuture<Exam> findExamWithQuestionsById(final Long id, final Duration timeout) {
+        return findExamWithQuestionsById(id).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    default CompletableFuture<Exam> save(final Exam exam, final Duration timeout) {
+        return save(exam).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+}
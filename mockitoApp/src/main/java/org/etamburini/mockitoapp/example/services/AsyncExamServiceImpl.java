@@ -0,0 +1,62 @@
+package org.etamburini.mockitoapp.example.services;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.AsyncExamRepository;
+import org.etamburini.mockitoapp.example.repositories.AsyncQuestionRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncExamServiceImpl implements AsyncExamService {
+    private final AsyncExamRepository examRepository;
+
+    private final AsyncQuestionRepository questionRepository;
+
+    public AsyncExamServiceImpl(final AsyncExamRepository examRepository, final AsyncQuestionRepository questionRepository) {
+        this.examRepository = examRepository;
+        this.questionRepository = questionRepository;
+    }
+
+    @Override
+    public CompletableFuture<Optional<Exam>> getExamByName(final String name) {
+        return examRepository.findAll().thenApply(exams -> exams.stream()
+                .filter(exam -> exam.getName().contains(name))
+                .findFirst());
+    }
+
+    @Override
+    public CompletableFuture<Exam> findExamWithQuestionsByName(final String name) {
+        return getExamByName(name).thenCompose(examOptional -> examOptional
+                .map(exam -> questionRepository.findQuestionsByExamId(exam.getId()).thenApply(exam::withQuestions))
+                .orElseGet(() -> CompletableFuture.completedFuture(null)));
+    }
+
+    // The id is known, so the exam and its questions are looked up at the same time
+    @Override
+    public CompletableFuture<Exam> findExamWithQuestionsById(final Long id) {
+        final CompletableFuture<List<String>> questions = questionRepository.findQuestionsByExamId(id);
+        return examRepository.findById(id).thenCombine(questions, (examOptional, examQuestions) -> examOptional
+                .map(exam -> exam.withQuestions(examQuestions))
+                .orElse(null));
+    }
+
+    // The questions are saved in the same order than ExamServiceImpl.save
+    @Override
+    public CompletableFuture<Exam> save(final Exam exam) {
+        if (exam.getQuestions().isEmpty()) {
+            return examRepository.save(exam);
+        }
+        if (!questionRepository.savesQuestionsByExamId()) {
+            return questionRepository.saveQuestions(exam.getQuestions()).thenCompose(ignored -> examRepository.save(exam));
+        }
+
+        return examRepository.save(exam).thenCompose(saved -> {
+            final Long examId = saved == null ? exam.getId() : saved.getId();
+            final CompletableFuture<Void> questionsSaved = examId == null
+                    ? questionRepository.saveQuestions(exam.getQuestions())
+                    : questionRepository.saveQuestions(examId, exam.getQuestions());
+            return questionsSaved.thenApply(ignored -> saved);
+        });
+    }
+}
@@ -2,10 +2,15 @@ package org.etamburini.mockitoapp.example.services;
 
 import org.etamburini.mockitoapp.example.models.Exam;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ExamService {
     Optional<Exam> getExamByName(final String name);
     Exam findExamWithQuestionsByName(final String name);
+    Exam findLazyExamByName(final String name);
+    void prefetchQuestions(final Collection<Exam> exams);
+    Map<String, Exam> findExamsWithQuestionsByNames(final Collection<String> names);
     Exam save(final Exam exam);
 }
@@ -3,9 +3,17 @@ package org.etamburini.mockitoapp.example.services;
 import org.etamburini.mockitoapp.example.models.Exam;
 import org.etamburini.mockitoapp.example.repositories.ExamRepository;
 import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
+import org.etamburini.mockitoapp.example.repositories.SearchableExamRepository;
+import org.etamburini.mockitoapp.example.repositories.StreamingExamRepository;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class ExamServiceImpl implements ExamService {
     private ExamRepository examRepository;
@@ -19,6 +27,15 @@ public class ExamServiceImpl implements ExamService {
 
     @Override
     public Optional<Exam> getExamByName(String name) {
+        if (examRepository instanceof SearchableExamRepository searchableRepository) {
+            return searchableRepository.findFirstByName(name);
+        }
+        if (examRepository instanceof StreamingExamRepository streamingRepository) {
+            try (Stream<Exam> exams = streamingRepository.streamAll()) {
+                return exams.filter(exam -> exam.getName().contains(name)).findFirst();
+            }
+        }
+
         return examRepository.findAll().stream().filter(schoolTest -> schoolTest.getName().contains(name))
                 .findFirst();
     }
@@ -30,18 +47,96 @@ public class ExamServiceImpl implements ExamService {
         if (examOptional.isPresent()) {
            exam = examOptional.orElseThrow();
            final List<String> questions = questionRepository.findQuestionsByExamId(exam.getId());
-           exam.setQuestions(questions);
+           exam = exam.withQuestions(questions);
         }
 
         return exam;
     }
 
+    // The questions are only read from the repository if the caller asks for them
+    @Override
+    public Exam findLazyExamByName(final String name) {
+        return getExamByName(name).map(exam -> {
+            final Exam lazyExam = new Exam(exam.getId(), exam.getName());
+            final Long id = exam.getId();
+            lazyExam.setQuestionLoader(() -> questionRepository.findQuestionsByExamId(id));
+            return lazyExam;
+        }).orElse(null);
+    }
+
+    // The questions of all the lazy exams that were not loaded yet are read with a single batch
+    @Override
+    public void prefetchQuestions(final Collection<Exam> exams) {
+        final Set<Long> ids = new LinkedHashSet<>();
+        for (Exam exam : exams) {
+            if (!exam.isQuestionsLoaded()) {
+                ids.add(exam.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        final Map<Long, List<String>> questionsByExamId = questionRepository.findQuestionsByExamIds(ids);
+        for (Exam exam : exams) {
+            if (questionsByExamId.containsKey(exam.getId())) {
+                exam.completeQuestions(questionsByExamId.get(exam.getId()));
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Exam> findExamsWithQuestionsByNames(final Collection<String> names) {
+        final Map<String, Exam> examsByName = findExamsByNames(names);
+        if (examsByName.isEmpty()) {
+            return examsByName;
+        }
+
+        final Set<Long> ids = new LinkedHashSet<>();
+        examsByName.values().forEach(exam -> ids.add(exam.getId()));
+        final Map<Long, List<String>> questionsByExamId = questionRepository.findQuestionsByExamIds(ids);
+        final Map<String, Exam> examsWithQuestions = new LinkedHashMap<>();
+        examsByName.forEach((name, exam) -> examsWithQuestions.put(name, exam.withQuestions(questionsByExamId.getOrDefault(exam.getId(), List.of()))));
+
+        return examsWithQuestions;
+    }
+
+    // Every name is resolved against the same snapshot of the exams, the names without an exam are not in the map
+    protected Map<String, Exam> findExamsByNames(final Collection<String> names) {
+        final List<Exam> exams = examRepository.findAll();
+        final Map<String, Exam> examsByName = new LinkedHashMap<>();
+        for (String name : names) {
+            if (!examsByName.containsKey(name)) {
+                exams.stream().filter(exam -> exam.getName().contains(name))
+                        .findFirst()
+                        .ifPresent(exam -> examsByName.put(name, exam));
+            }
+        }
+
+        return examsByName;
+    }
+
+    // A repository that keeps the questions by exam id gets them after the exam, under the id the exam was saved with.
+    // If they fail to save, the exam stays saved without them and saving it again replaces its questions.
+    // Any other repository gets the questions before the exam, so a failure saves nothing.
     @Override
     public Exam save(Exam exam) {
-        if(!exam.getQuestions().isEmpty()) {
+        if (exam.getQuestions().isEmpty()) {
+            return examRepository.save(exam);
+        }
+        if (!questionRepository.savesQuestionsByExamId()) {
+            questionRepository.saveQuestions(exam.getQuestions());
+            return examRepository.save(exam);
+        }
+
+        final Exam saved = examRepository.save(exam);
+        final Long examId = saved == null ? exam.getId() : saved.getId();
+        if (examId == null) {
             questionRepository.saveQuestions(exam.getQuestions());
+        } else {
+            questionRepository.saveQuestions(examId, exam.getQuestions());
         }
 
-        return examRepository.save(exam);
+        return saved;
     }
 }
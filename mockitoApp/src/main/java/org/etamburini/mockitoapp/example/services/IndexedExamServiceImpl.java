@@ -0,0 +1,71 @@
+package org.etamburini.mockitoapp.example.services;
+
+import org.etamburini.mockitoapp.example.indexes.ExamNameIndex;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.ExamRepository;
+import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public class IndexedExamServiceImpl extends ExamServiceImpl {
+    private final ExamRepository examRepository;
+
+    private volatile ExamNameIndex index;
+
+    public IndexedExamServiceImpl(final ExamRepository examRepository, final QuestionRepository questionRepository) {
+        super(examRepository, questionRepository);
+        this.examRepository = examRepository;
+    }
+
+    @Override
+    public Optional<Exam> getExamByName(final String name) {
+        return index().findFirstContaining(name);
+    }
+
+    @Override
+    protected Map<String, Exam> findExamsByNames(final Collection<String> names) {
+        final ExamNameIndex current = index();
+        final Map<String, Exam> examsByName = new LinkedHashMap<>();
+        for (String name : names) {
+            if (!examsByName.containsKey(name)) {
+                current.findFirstContaining(name).ifPresent(exam -> examsByName.put(name, exam));
+            }
+        }
+
+        return examsByName;
+    }
+
+    @Override
+    public Exam save(final Exam exam) {
+        final Exam saved = super.save(exam);
+        synchronized (this) {
+            if (index != null && saved != null) {
+                index.add(saved);
+            }
+        }
+
+        return saved;
+    }
+
+    // Drops the index so the next search reads the repository again, for exams saved without this service
+    public synchronized void refreshIndex() {
+        index = null;
+    }
+
+    private ExamNameIndex index() {
+        ExamNameIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new ExamNameIndex(examRepository.findAll());
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,195 @@
+package org.etamburini.mockitoapp.example.services;
+
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.etamburini.mockitoapp.example.ids.IdAllocator;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.ExamRepository;
+import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// The saves are buffered and written by batches, an exam waits at most the max delay or until a batch is full.
+// The owner closes the service before the JVM exits, the exams still buffered are only written by close or flush.
+public class WriteBehindExamServiceImpl extends ExamServiceImpl implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 512;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(100);
+
+    private final ExamRepository examRepository;
+    private final QuestionRepository questionRepository;
+    private final IdAllocator idAllocator;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Exam> pending;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // The saves hold the read lock from the closed check to the enqueue, close takes the write lock
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    // The batch being written, a batch that failed is kept here and written again before the next exams
+    private final List<Exam> batch = new ArrayList<>();
+    private final Thread flusher;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    public WriteBehindExamServiceImpl(final ExamRepository examRepository, final QuestionRepository questionRepository) {
+        this(examRepository, questionRepository, seededAllocator(examRepository), DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY);
+    }
+
+    public WriteBehindExamServiceImpl(final ExamRepository examRepository, final QuestionRepository questionRepository,
+                                      final IdAllocator idAllocator, final int batchSize, final Duration maxDelay) {
+        super(examRepository, questionRepository);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+        this.examRepository = examRepository;
+        this.questionRepository = questionRepository;
+        this.idAllocator = idAllocator;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.pending = new LinkedBlockingQueue<>(batchSize * 16);
+        this.flusher = Thread.ofPlatform().name("exam-write-behind").daemon().start(this::runFlusher);
+    }
+
+    // The exam gets its id at once, it is written to the repositories with the next batch
+    @Override
+    public Exam save(final Exam exam) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The service is closed");
+            }
+            if (exam.getId() == null) {
+                exam.setId(idAllocator.nextId());
+            }
+            pending.put(exam);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the exam was buffered", e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        if (pending.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+
+        return exam;
+    }
+
+    // The searches read the repositories, so the buffered exams are written first
+    @Override
+    public Optional<Exam> getExamByName(final String name) {
+        flush();
+        return super.getExamByName(name);
+    }
+
+    @Override
+    protected Map<String, Exam> findExamsByNames(final Collection<String> names) {
+        flush();
+        return super.findExamsByNames(names);
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (true) {
+                if (batch.isEmpty()) {
+                    pending.drainTo(batch, batchSize);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                write(batch);
+                batch.clear();
+            }
+            failure = null;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int pendingExams() {
+        flushLock.lock();
+        try {
+            return pending.size() + batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public Optional<RuntimeException> getFailure() {
+        return Optional.ofNullable(failure);
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // The ids go on after the exams already saved, a reopened repository keeps its exams
+    private static IdAllocator seededAllocator(final ExamRepository examRepository) {
+        final BlockIdAllocator idAllocator = new BlockIdAllocator();
+        idAllocator.skipTo(examRepository.maxId());
+        return idAllocator;
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            if (pending.size() < batchSize) {
+                LockSupport.parkNanos(this, maxDelayNanos);
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // The failure is kept and the batch is written again in the next round
+                LockSupport.parkNanos(this, maxDelayNanos);
+            }
+        }
+    }
+
+    // The last save of an exam in the batch wins, and the repositories keep the last save of an exam id,
+    // so a batch written again after a failure replaces what the failed try already wrote
+    private void write(final List<Exam> exams) {
+        final Map<Long, Exam> lastSaves = new LinkedHashMap<>();
+        for (Exam exam : exams) {
+            lastSaves.remove(exam.getId());
+            lastSaves.put(exam.getId(), exam);
+        }
+        final Map<Long, List<String>> questionsByExamId = new LinkedHashMap<>();
+        for (Exam exam : lastSaves.values()) {
+            if (!exam.getQuestions().isEmpty()) {
+                questionsByExamId.put(exam.getId(), exam.getQuestions());
+            }
+        }
+        if (!questionsByExamId.isEmpty()) {
+            questionRepository.saveAllQuestions(questionsByExamId);
+        }
+        examRepository.saveAll(List.copyOf(lastSaves.values()));
+    }
+}
@@ -0,0 +1,125 @@
+package org.etamburini.mockitoapp.example.catalogs;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.CatalogExamRepository;
+import org.etamburini.mockitoapp.example.repositories.QuestionRepositoryImpl;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExamCatalogTest {
+    @Test
+    void testSnapshotsAreImmutable() {
+        final ExamCatalog catalog = new ExamCatalog();
+        catalog.saveAll(Data.EXAMS.stream().map(exam -> new Exam(exam.getId(), exam.getName())).toList());
+        final ExamCatalog.Snapshot before = catalog.snapshot();
+
+        catalog.save(new Exam(2L, "Geography"));
+        final CatalogExam physics = catalog.save(new Exam(null, "Physics"));
+
+        final ExamCatalog.Snapshot after = catalog.snapshot();
+        assertEquals(1L, before.getVersion());
+        assertEquals(3L, after.getVersion());
+        assertEquals(List.of("Math mock", "Languages mock", "History mock"), before.exams().stream().map(CatalogExam::name).toList());
+        assertEquals(List.of("Math mock", "Geography", "History mock", "Physics"), after.exams().stream().map(CatalogExam::name).toList());
+        assertEquals(6L, physics.id(), () -> "The new ids must be after the saved ones");
+        assertEquals("Languages mock", before.findById(2L).orElseThrow().name());
+        assertEquals("Geography", after.findById(2L).orElseThrow().name());
+        assertTrue(before.findById(6L).isEmpty());
+        assertEquals("Physics", after.get(3).name());
+        assertThrows(IndexOutOfBoundsException.class, () -> before.get(3));
+    }
+
+    @Test
+    void testFindFirstByName() {
+        final ExamCatalog catalog = new ExamCatalog();
+        for (long id = 0; id < 5_000; id++) {
+            catalog.save(new Exam(id * 7919, "Exam " + id));
+        }
+        final ExamCatalog.Snapshot snapshot = catalog.snapshot();
+
+        assertEquals(5_000, snapshot.size());
+        assertEquals(42L * 7919, snapshot.findFirstByName("Exam 42").orElseThrow().id());
+        assertEquals(4_999L * 7919, snapshot.findById(4_999L * 7919).orElseThrow().id());
+        assertTrue(snapshot.findFirstByName("Physics").isEmpty());
+        assertEquals("Exam 1234", snapshot.get(1234).name());
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() {
+        final ExamCatalog catalog = new ExamCatalog();
+        final int writers = 4;
+        final int examsPerWriter = 2_000;
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            final ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+            try {
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int w = 0; w < writers; w++) {
+                    final int writer = w;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < examsPerWriter; i++) {
+                            catalog.save(new Exam(null, "Writer " + writer + " exam " + i));
+                        }
+                    }));
+                }
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        final ExamCatalog.Snapshot snapshot = catalog.snapshot();
+                        assertEquals(snapshot.size(), snapshot.exams().size(), () -> "A snapshot must be consistent");
+                    }
+                }));
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+
+        final ExamCatalog.Snapshot snapshot = catalog.snapshot();
+        assertEquals(writers * examsPerWriter, snapshot.size());
+        assertEquals(writers * examsPerWriter, snapshot.getVersion());
+        assertEquals(writers * examsPerWriter, snapshot.exams().stream().map(CatalogExam::id).distinct().count());
+    }
+
+    @Test
+    void testRepositoryReturnsFreshExams() {
+        final CatalogExamRepository repository = new CatalogExamRepository();
+        final Exam math = new Exam(5L, "Math");
+        math.setQuestions(new ArrayList<>(Data.QUESTIONS));
+        repository.save(math);
+        math.getQuestions().clear();
+
+        final Exam first = repository.findById(5L).orElseThrow();
+        first.setName("Changed");
+        first.getQuestions().add("Question 6");
+
+        final Exam second = repository.findFirstByName("Math").orElseThrow();
+        assertNotSame(first, second);
+        assertEquals("Math", second.getName());
+        assertEquals(Data.QUESTIONS, second.getQuestions());
+    }
+
+    @Test
+    void testServiceWithCatalog() {
+        final CatalogExamRepository repository = new CatalogExamRepository();
+        repository.saveAll(List.of(new Exam(5L, "Math"), new Exam(2L, "Languages")));
+        final ExamService service = new ExamServiceImpl(repository, new QuestionRepositoryImpl());
+
+        final Exam exam = service.findExamWithQuestionsByName("Math");
+
+        assertEquals(Data.REAL_QUESTIONS, exam.getQuestions());
+        assertTrue(repository.findById(5L).orElseThrow().getQuestions().isEmpty());
+    }
+}
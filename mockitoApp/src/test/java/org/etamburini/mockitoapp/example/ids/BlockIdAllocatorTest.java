@@ -0,0 +1,136 @@
+package org.etamburini.mockitoapp.example.ids;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockIdAllocatorTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testIdsAreMonotonicInAThread() {
+        final BlockIdAllocator allocator = new BlockIdAllocator(null, 1L, 16, 16);
+
+        long previous = 0;
+        for (int i = 0; i < 1_000; i++) {
+            final long id = allocator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(1_000, previous);
+    }
+
+    @Test
+    void testConcurrentIdsAreUnique() {
+        final BlockIdAllocator allocator = new BlockIdAllocator(directory.resolve("exams.ids"), 1L, 64, 4096);
+        final int threads = 8;
+        final int idsPerThread = 100_000;
+
+        final Set<Long> ids = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                final List<Future<long[]>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(() -> {
+                        final long[] threadIds = new long[idsPerThread];
+                        for (int i = 0; i < idsPerThread; i++) {
+                            threadIds[i] = allocator.nextId();
+                            if (i > 0 && threadIds[i] <= threadIds[i - 1]) {
+                                throw new IllegalStateException("The ids of a thread must grow");
+                            }
+                        }
+                        return threadIds;
+                    }));
+                }
+                final Set<Long> all = new HashSet<>();
+                for (Future<long[]> future : futures) {
+                    for (long id : future.get()) {
+                        all.add(id);
+                    }
+                }
+                return all;
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @Test
+    void testVirtualThreadsShareTheBlocksOfTheStripes() throws Exception {
+        final BlockIdAllocator allocator = new BlockIdAllocator(directory.resolve("exams.ids"), 1L, 16, 64, 3);
+        final int tasks = 1_000;
+
+        final List<Future<Long>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < tasks; i++) {
+                futures.add(executor.submit(allocator::nextId));
+            }
+        }
+        final Set<Long> ids = new HashSet<>();
+        for (Future<Long> future : futures) {
+            ids.add(future.get());
+        }
+
+        assertEquals(4, allocator.getStripes());
+        assertEquals(tasks, ids.size());
+        final long max = ids.stream().mapToLong(Long::longValue).max().orElseThrow();
+        assertTrue(max < 2 * tasks, () -> "A block per virtual thread was claimed, the last id is " + max);
+    }
+
+    @Test
+    void testIdsSurviveARestart() {
+        final Path mark = directory.resolve("exams.ids");
+        final BlockIdAllocator allocator = new BlockIdAllocator(mark, 1L, 16, 64);
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            last = allocator.nextId();
+        }
+
+        final BlockIdAllocator restarted = new BlockIdAllocator(mark, 1L, 16, 64);
+
+        assertTrue(restarted.nextId() > last, () -> "An id of the previous run must not be handed out again");
+    }
+
+    @Test
+    void testSkipTo() {
+        final BlockIdAllocator allocator = new BlockIdAllocator(null, 1L, 16, 16);
+        assertEquals(1L, allocator.nextId());
+
+        allocator.skipTo(100L);
+        allocator.skipTo(50L);
+        for (int i = 0; i < 15; i++) {
+            allocator.nextId();
+        }
+
+        assertEquals(101L, allocator.nextId(), () -> "The next block must start after the skipped id");
+    }
+
+    @Test
+    void testCorruptedMark() throws IOException {
+        final Path mark = directory.resolve("exams.ids");
+        new BlockIdAllocator(mark, 1L, 16, 16).nextId();
+        final byte[] bytes = Files.readAllBytes(mark);
+        bytes[0] ^= 1;
+        Files.write(mark, bytes);
+
+        assertThrows(IllegalStateException.class, () -> new BlockIdAllocator(mark, 1L, 16, 16));
+        assertThrows(IllegalArgumentException.class, () -> new BlockIdAllocator(null, 1L, 16, 8));
+        assertThrows(IllegalArgumentException.class, () -> new BlockIdAllocator(null, 1L, 16, 16, 0));
+    }
+}
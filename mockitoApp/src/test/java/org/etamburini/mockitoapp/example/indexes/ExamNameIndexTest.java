@@ -0,0 +1,63 @@
+package org.etamburini.mockitoapp.example.indexes;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExamNameIndexTest {
+    @Test
+    void testFindFirstContaining() {
+        final ExamNameIndex index = new ExamNameIndex(Data.EXAMS);
+
+        assertEquals(5L, index.findFirstContaining("Math mock").orElseThrow().getId());
+        assertEquals(2L, index.findFirstContaining("guag").orElseThrow().getId());
+        assertEquals(5L, index.findFirstContaining("mock").orElseThrow().getId(), () -> "The first exam in the repository order must be returned");
+        assertEquals(3L, index.findFirstContaining("Hi").orElseThrow().getId());
+        assertEquals(5L, index.findFirstContaining("").orElseThrow().getId());
+        assertTrue(index.findFirstContaining("Physics").isEmpty());
+        assertTrue(index.findFirstContaining("mockMath").isEmpty(), () -> "All the trigrams are indexed but not in this order");
+    }
+
+    @Test
+    void testAddUpdatesTheIndex() {
+        final ExamNameIndex index = new ExamNameIndex(Data.EXAMS);
+
+        index.add(new Exam(8L, "Physics mock"));
+        index.add(new Exam(2L, "Geography"));
+
+        assertEquals(4, index.size());
+        assertEquals(8L, index.findFirstContaining("Physics").orElseThrow().getId());
+        assertEquals(2L, index.findFirstContaining("Geo").orElseThrow().getId());
+        assertTrue(index.findFirstContaining("Languages").isEmpty());
+        assertEquals(3L, index.findFirstContaining("ory mock").orElseThrow().getId());
+    }
+
+    @Test
+    void testSameResultsThanTheStreamScan() {
+        final Random random = new Random(42);
+        final String[] words = {"Math", "Languages", "History", "Physics", "Chemistry", "Art", "Music", "mock", "final", "2024"};
+        final List<Exam> exams = new ArrayList<>();
+        final ExamNameIndex index = new ExamNameIndex();
+        for (long id = 0; id < 5_000; id++) {
+            final Exam exam = new Exam(id, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + id);
+            exams.add(exam);
+            index.add(exam);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            final String name = exams.get(random.nextInt(exams.size())).getName();
+            final int start = random.nextInt(name.length());
+            final String query = name.substring(start, start + random.nextInt(name.length() - start + 1));
+            final Optional<Exam> waited = exams.stream().filter(exam -> exam.getName().contains(query)).findFirst();
+
+            assertEquals(waited, index.findFirstContaining(query), () -> "Different result for " + query);
+        }
+    }
+}
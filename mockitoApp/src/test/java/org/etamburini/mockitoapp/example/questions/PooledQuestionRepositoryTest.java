@@ -0,0 +1,65 @@
+package org.etamburini.mockitoapp.example.questions;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.ExamRepository;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PooledQuestionRepositoryTest {
+    @Mock
+    private ExamRepository examRepository;
+
+    @Test
+    void testQuestionsAreShared() {
+        final PooledQuestionRepository repository = new PooledQuestionRepository();
+        for (long id = 0; id < 100; id++) {
+            repository.saveQuestions(id, Data.REAL_QUESTIONS);
+        }
+        repository.saveQuestions(7L, List.of("Real Question 6"));
+
+        assertEquals(6, repository.getPool().size());
+        assertEquals(Data.REAL_QUESTIONS, repository.findQuestionsByExamId(3L));
+        assertEquals(List.of("Real Question 6"), repository.findQuestionsByExamId(7L));
+        assertArrayEquals(repository.findQuestionIdsByExamId(1L), repository.findQuestionIdsByExamId(2L));
+        assertTrue(repository.findQuestionsByExamId(100L).isEmpty());
+
+        final Map<Long, List<String>> questions = repository.findQuestionsByExamIds(List.of(1L, 100L));
+        assertEquals(Data.REAL_QUESTIONS, questions.get(1L));
+        assertTrue(questions.get(100L).isEmpty());
+    }
+
+    @Test
+    void testLoadQuestions() {
+        final PooledQuestionRepository repository = new PooledQuestionRepository();
+        repository.saveQuestions(5L, Data.QUESTIONS);
+        final Exam exam = new Exam(5L, "Math");
+
+        repository.loadQuestions(exam);
+
+        assertEquals(5, exam.getQuestionIds().length);
+        assertEquals(Data.QUESTIONS, exam.getQuestions());
+    }
+
+    @Test
+    void testServiceWithPooledQuestions() {
+        final PooledQuestionRepository repository = new PooledQuestionRepository();
+        repository.saveQuestions(5L, Data.QUESTIONS);
+        when(examRepository.findAll()).thenReturn(List.of(new Exam(5L, "Math"), new Exam(2L, "Languages")));
+        final ExamService service = new ExamServiceImpl(examRepository, repository);
+
+        assertEquals(Data.QUESTIONS, service.findExamWithQuestionsByName("Math").getQuestions());
+        assertTrue(service.findExamWithQuestionsByName("Languages").getQuestions().isEmpty());
+    }
+}
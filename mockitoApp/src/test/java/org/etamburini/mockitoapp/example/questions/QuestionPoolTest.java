@@ -0,0 +1,145 @@
+package org.etamburini.mockitoapp.example.questions;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionPoolTest {
+    @Test
+    void testInternDeduplicates() {
+        final QuestionPool pool = new QuestionPool();
+
+        final int[] first = pool.intern(Data.REAL_QUESTIONS);
+        final int[] second = pool.intern(new ArrayList<>(Data.REAL_QUESTIONS.stream().map(String::new).toList()));
+
+        assertArrayEquals(first, second);
+        assertEquals(5, pool.size());
+        assertSame(Data.REAL_QUESTIONS.get(2), pool.get(second[2]));
+        assertEquals(Data.REAL_QUESTIONS, pool.view(second));
+        assertThrows(UnsupportedOperationException.class, () -> pool.view(second).add("Question 6"));
+    }
+
+    @Test
+    void testConcurrentIntern() {
+        final QuestionPool pool = new QuestionPool();
+
+        final List<int[]> results = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                final List<Future<int[]>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    futures.add(executor.submit(() -> {
+                        final int[] ids = new int[1_000];
+                        for (int i = 0; i < ids.length; i++) {
+                            ids[i] = pool.intern("Question " + i);
+                        }
+                        return ids;
+                    }));
+                }
+                final List<int[]> all = new ArrayList<>();
+                for (Future<int[]> future : futures) {
+                    all.add(future.get());
+                }
+                return all;
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+
+        assertEquals(1_000, pool.size());
+        for (int[] ids : results) {
+            assertArrayEquals(results.get(0), ids);
+        }
+        assertEquals("Question 999", pool.get(results.get(0)[999]));
+    }
+
+    @Test
+    void testGetWhileThePoolGrows() {
+        final QuestionPool pool = new QuestionPool();
+        final int questions = 10_000;
+        // The opaque accesses hand the ids over without ordering, so the reader can see an id before its text
+        final AtomicIntegerArray published = new AtomicIntegerArray(questions);
+        final Thread writer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < questions; i++) {
+                published.setOpaque(i, pool.intern("Question " + i) + 1);
+            }
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; i < questions; i++) {
+                int id;
+                while ((id = published.getOpaque(i)) == 0) {
+                    Thread.onSpinWait();
+                }
+                assertEquals("Question " + i, pool.get(id - 1));
+            }
+            writer.join();
+        });
+        assertThrows(IndexOutOfBoundsException.class, () -> pool.get(questions));
+        assertThrows(IndexOutOfBoundsException.class, () -> pool.get(-1));
+    }
+
+    @Test
+    void testExamQuestionIds() {
+        final QuestionPool pool = new QuestionPool();
+        final Exam exam = new Exam(5L, "Math");
+
+        assertTrue(exam.getQuestions().isEmpty());
+        exam.setQuestionIds(pool, pool.intern(Data.QUESTIONS));
+
+        assertEquals(Data.QUESTIONS, exam.getQuestions());
+        assertSame(exam.getQuestions(), exam.getQuestions());
+
+        exam.setQuestions(new ArrayList<>(List.of("Question 6")));
+        assertNull(exam.getQuestionIds());
+        exam.getQuestions().add("Question 7");
+        assertEquals(List.of("Question 6", "Question 7"), exam.getQuestions());
+    }
+
+    @Test
+    void testConcurrentGetQuestionsShareTheList() {
+        final QuestionPool pool = new QuestionPool();
+        final int[] ids = pool.intern(Data.QUESTIONS);
+        final List<Exam> exams = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            final Exam exam = new Exam((long) i, "Exam " + i);
+            if (i % 2 == 0) {
+                exam.setQuestionIds(pool, ids);
+            }
+            exams.add(exam);
+        }
+
+        final List<List<List<String>>> results = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                final List<Future<List<List<String>>>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    futures.add(executor.submit(() -> exams.stream().map(Exam::getQuestions).toList()));
+                }
+                final List<List<List<String>>> all = new ArrayList<>();
+                for (Future<List<List<String>>> future : futures) {
+                    all.add(future.get());
+                }
+                return all;
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+
+        for (int i = 0; i < exams.size(); i++) {
+            for (List<List<String>> questions : results) {
+                assertSame(exams.get(i).getQuestions(), questions.get(i), "Every caller must get the list of the exam");
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingExamRepositoryTest {
+    @Mock
+    private ExamRepository examRepository;
+    @Mock
+    private QuestionRepository questionRepository;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private CachingExamRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingExamRepository(examRepository, Duration.ofSeconds(10), 0.5, 10, refreshes::add, clock::get);
+    }
+
+    @Test
+    void testFindAllIsCached() {
+        when(examRepository.findAll()).thenReturn(Data.EXAMS);
+
+        assertEquals(Data.EXAMS, repository.findAll());
+        assertEquals(Data.EXAMS, repository.findAll());
+        assertEquals(Data.EXAMS, repository.findAll());
+
+        verify(examRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testFindAllExpires() {
+        when(examRepository.findAll()).thenReturn(Data.EXAMS);
+
+        repository.findAll();
+        clock.set(Duration.ofSeconds(10).toNanos());
+        repository.findAll();
+
+        verify(examRepository, times(2)).findAll();
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void testFindAllRefreshAhead() {
+        when(examRepository.findAll()).thenReturn(Data.EXAMS).thenReturn(Data.REAL_EXAMS);
+
+        repository.findAll();
+        clock.set(Duration.ofSeconds(6).toNanos());
+
+        assertEquals(Data.EXAMS, repository.findAll(), () -> "The cached exams must be returned while they are refreshed");
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        assertEquals(Data.REAL_EXAMS, repository.findAll());
+
+        clock.set(Duration.ofSeconds(15).toNanos());
+        assertEquals(Data.REAL_EXAMS, repository.findAll(), () -> "The refreshed exams must live a whole TTL");
+        verify(examRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testRefreshAheadIsScheduledOnce() {
+        when(examRepository.findAll()).thenReturn(Data.EXAMS).thenReturn(Data.REAL_EXAMS);
+
+        repository.findAll();
+        clock.set(Duration.ofSeconds(6).toNanos());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Data.EXAMS, repository.findAll());
+        }
+
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        assertEquals(Data.REAL_EXAMS, repository.findAll());
+        verify(examRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testFindAllAfterSaveDoesNotJoinAnOlderLoad() throws Exception {
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(examRepository.save(Data.EXAM)).thenReturn(Data.EXAM);
+        when(examRepository.findAll()).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await(10, TimeUnit.SECONDS);
+            return Data.EXAMS;
+        }).thenReturn(Data.REAL_EXAMS);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CompletableFuture<List<Exam>> olderLoad = CompletableFuture.supplyAsync(repository::findAll, executor);
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            repository.save(Data.EXAM);
+
+            assertEquals(Data.REAL_EXAMS, repository.findAll(), () -> "The load started before the save must not be joined");
+            releaseLoad.countDown();
+            assertEquals(Data.EXAMS, olderLoad.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(Data.REAL_EXAMS, repository.findAll(), () -> "The older load must not be cached");
+        verify(examRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testSaveInvalidates() {
+        when(examRepository.findAll()).thenReturn(Data.EXAMS);
+        when(examRepository.save(Data.EXAM)).thenReturn(Data.EXAM);
+
+        repository.findAll();
+        assertEquals(8L, repository.save(Data.EXAM).getId());
+        repository.findAll();
+
+        verify(examRepository, times(2)).findAll();
+        verify(examRepository).save(Data.EXAM);
+    }
+
+    @Test
+    void testTooManyExamsAreNotCached() {
+        final List<Exam> exams = new ArrayList<>();
+        for (long i = 0; i < 11; i++) {
+            exams.add(new Exam(i, "Exam " + i));
+        }
+        when(examRepository.findAll()).thenReturn(exams);
+
+        repository.findAll();
+        repository.findAll();
+
+        verify(examRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(examRepository.findAll()).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await(10, TimeUnit.SECONDS);
+            return Data.EXAMS;
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<CompletableFuture<List<Exam>>> futures = new ArrayList<>();
+            futures.add(CompletableFuture.supplyAsync(repository::findAll, executor));
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                futures.add(CompletableFuture.supplyAsync(repository::findAll, executor));
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+            releaseLoad.countDown();
+
+            for (CompletableFuture<List<Exam>> future : futures) {
+                assertEquals(Data.EXAMS, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(examRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testServiceWithCachedRepository() {
+        final ExamService service = new ExamServiceImpl(new CachingExamRepository(new ExamRepositoryImpl()), questionRepository);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(5L, service.getExamByName("Math").orElseThrow().getId());
+        }
+
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(3).toNanos(), () -> "Only the first call must wait the slow repository");
+    }
+}
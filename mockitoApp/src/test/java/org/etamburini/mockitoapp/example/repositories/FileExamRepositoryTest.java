@@ -0,0 +1,138 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileExamRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSaveAndFindAll() {
+        final Path path = directory.resolve("exams.db");
+        try (FileExamRepository repository = new FileExamRepository(path)) {
+            repository.save(new Exam(5L, "Math"));
+            final Exam languages = repository.save(new Exam(null, "Languages"));
+            repository.save(new Exam(3L, "History"));
+            repository.save(new Exam(null, null));
+
+            assertEquals(6L, languages.getId(), () -> "A new exam must get the next id");
+            assertEquals(4, repository.size());
+        }
+
+        try (FileExamRepository repository = new FileExamRepository(path)) {
+            final List<Exam> exams = repository.findAll();
+
+            assertEquals(List.of(5L, 6L, 3L, 7L), exams.stream().map(Exam::getId).toList());
+            assertEquals("Languages", exams.get(1).getName());
+            assertNull(exams.get(3).getName());
+            assertEquals("History", repository.findById(3L).orElseThrow().getName());
+            assertTrue(repository.findById(4L).isEmpty());
+        }
+    }
+
+    @Test
+    void testIdsAreUniqueAfterARestart() {
+        final Path path = directory.resolve("exams.db");
+        final Set<Long> ids = new HashSet<>();
+        for (int run = 0; run < 3; run++) {
+            try (FileExamRepository repository = new FileExamRepository(path)) {
+                for (Exam exam : Data.EXAMS_NULL_ID) {
+                    ids.add(repository.save(new Exam(exam.getId(), exam.getName())).getId());
+                }
+            }
+        }
+
+        try (FileExamRepository repository = new FileExamRepository(path, new BlockIdAllocator())) {
+            assertEquals(9, ids.size());
+            assertEquals(9, repository.size());
+            final Exam exam = repository.save(new Exam(null, "Physics"));
+            assertFalse(ids.contains(exam.getId()), () -> "The saved ids must be skipped without the high water mark");
+        }
+    }
+
+    @Test
+    void testSaveReplacesTheExam() {
+        final Path path = directory.resolve("exams.db");
+        try (FileExamRepository repository = new FileExamRepository(path)) {
+            repository.save(new Exam(1L, "Math"));
+            repository.save(new Exam(2L, "Languages"));
+            repository.save(new Exam(1L, "Algebra"));
+
+            assertEquals(List.of("Algebra", "Languages"), repository.findAll().stream().map(Exam::getName).toList());
+        }
+
+        try (FileExamRepository repository = new FileExamRepository(path)) {
+            assertEquals("Algebra", repository.findById(1L).orElseThrow().getName());
+            assertEquals(2, repository.size());
+        }
+    }
+
+    @Test
+    void testStreamAll() {
+        try (FileExamRepository repository = new FileExamRepository(directory.resolve("exams.db"))) {
+            for (long id = 1; id <= 1_000; id++) {
+                repository.save(new Exam(id, "Exam " + id));
+            }
+            repository.save(new Exam(2L, "Math"));
+
+            assertEquals(repository.findAll().stream().map(Exam::getName).toList(),
+                    repository.streamAll().map(Exam::getName).toList());
+            assertEquals(2L, repository.streamAll().filter(exam -> exam.getName().contains("Math")).findFirst().orElseThrow().getId());
+            assertEquals(1_000, repository.streamAll().count());
+        }
+    }
+
+    @Test
+    void testTornRecordIsDropped() throws IOException {
+        final Path path = directory.resolve("exams.db");
+        try (FileExamRepository repository = new FileExamRepository(path)) {
+            repository.save(new Exam(1L, "Math"));
+            repository.save(new Exam(2L, "Languages"));
+        }
+        final long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        try (FileExamRepository repository = new FileExamRepository(path)) {
+            assertEquals(List.of("Math"), repository.findAll().stream().map(Exam::getName).toList());
+            repository.save(new Exam(null, "History"));
+        }
+
+        try (FileExamRepository repository = new FileExamRepository(path)) {
+            assertEquals(List.of("Math", "History"), repository.findAll().stream().map(Exam::getName).toList());
+        }
+    }
+
+    @Test
+    void testServiceWithFileRepositories() {
+        try (FileExamRepository repository = new FileExamRepository(directory.resolve("exams.db"));
+             FileQuestionRepository questionRepository = new FileQuestionRepository(directory.resolve("questions.db"))) {
+            final ExamService service = new ExamServiceImpl(repository, questionRepository);
+            final Exam math = service.save(new Exam(null, "Math"));
+            questionRepository.saveQuestions(math.getId(), List.of("Question 1", "Question 2"));
+
+            final Exam exam = service.findExamWithQuestionsByName("Math");
+
+            assertEquals(1L, exam.getId());
+            assertEquals(List.of("Question 1", "Question 2"), exam.getQuestions());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileQuestionRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSaveAndFindQuestions() {
+        final Path path = directory.resolve("questions.db");
+        try (FileQuestionRepository repository = new FileQuestionRepository(path)) {
+            repository.saveQuestions(5L, List.of("Question 1", "Question 2"));
+            repository.saveQuestions(2L, List.of("¿Pregunta 1?"));
+            repository.saveQuestions(5L, List.of("Question 3"));
+            repository.saveQuestions(List.of("Question without exam"));
+
+            assertEquals(List.of("Question 3"), repository.findQuestionsByExamId(5L));
+        }
+
+        try (FileQuestionRepository repository = new FileQuestionRepository(path)) {
+            assertEquals(List.of("Question 3"), repository.findQuestionsByExamId(5L));
+            assertEquals(List.of("¿Pregunta 1?"), repository.findQuestionsByExamId(2L));
+            assertEquals(List.of("Question without exam"), repository.findQuestionsByExamId(null));
+            assertTrue(repository.findQuestionsByExamId(3L).isEmpty());
+        }
+    }
+
+    @Test
+    void testFindQuestionsByExamIds() {
+        try (FileQuestionRepository repository = new FileQuestionRepository(directory.resolve("questions.db"))) {
+            repository.saveQuestions(5L, List.of("Question 1"));
+            repository.saveQuestions(2L, List.of("Question 2", "Question 3"));
+
+            final Map<Long, List<String>> questions = repository.findQuestionsByExamIds(List.of(2L, 5L, 7L));
+
+            assertEquals(List.of("Question 1"), questions.get(5L));
+            assertEquals(List.of("Question 2", "Question 3"), questions.get(2L));
+            assertTrue(questions.get(7L).isEmpty());
+        }
+    }
+
+    @Test
+    void testManyAppendsAreReadBack() {
+        final Path path = directory.resolve("questions.db");
+        try (FileQuestionRepository repository = new FileQuestionRepository(path)) {
+            for (long id = 0; id < 500; id++) {
+                repository.saveQuestions(id, List.of("Question " + id));
+                assertEquals(List.of("Question " + id), repository.findQuestionsByExamId(id));
+            }
+        }
+
+        try (FileQuestionRepository repository = new FileQuestionRepository(path)) {
+            assertEquals(List.of("Question 250"), repository.findQuestionsByExamId(250L));
+        }
+    }
+
+    @Test
+    void testSavingAnExamAgainKeepsOneCopyOfItsQuestions() {
+        final Path exams = directory.resolve("exams.db");
+        final Path questions = directory.resolve("questions.db");
+        try (FileExamRepository examRepository = new FileExamRepository(exams);
+             FileQuestionRepository questionRepository = new FileQuestionRepository(questions)) {
+            final ExamService service = new ExamServiceImpl(examRepository, questionRepository);
+            final Exam exam = new Exam(null, "Math");
+            exam.setQuestions(List.of("Question 1", "Question 2"));
+
+            service.save(exam);
+            service.save(exam);
+
+            assertEquals(List.of("Question 1", "Question 2"), service.findExamWithQuestionsByName("Math").getQuestions());
+        }
+
+        try (FileQuestionRepository questionRepository = new FileQuestionRepository(questions)) {
+            assertEquals(List.of("Question 1", "Question 2"), questionRepository.findQuestionsByExamId(1L));
+        }
+    }
+}
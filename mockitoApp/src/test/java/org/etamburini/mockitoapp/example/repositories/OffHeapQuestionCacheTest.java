@@ -0,0 +1,169 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OffHeapQuestionCacheTest {
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Test
+    void testHitsAfterTheFirstMiss() {
+        final OffHeapQuestionCache cache = new OffHeapQuestionCache(questionRepository);
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(Data.REAL_QUESTIONS);
+
+        assertEquals(Data.REAL_QUESTIONS, cache.findQuestionsByExamId(5L));
+        final List<String> questions = cache.findQuestionsByExamId(5L);
+        questions.add("Real Question 6");
+
+        assertEquals(Data.REAL_QUESTIONS, cache.findQuestionsByExamId(5L), () -> "The cached questions must not change with the returned list");
+        verify(questionRepository, times(1)).findQuestionsByExamId(5L);
+        final OffHeapQuestionCache.CacheStats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.entries());
+        assertTrue(stats.usedBytes() > 0);
+    }
+
+    @Test
+    void testSaveQuestionsInvalidates() {
+        final OffHeapQuestionCache cache = new OffHeapQuestionCache(questionRepository);
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(Data.QUESTIONS).thenReturn(Data.REAL_QUESTIONS);
+        when(questionRepository.findQuestionsByExamId(2L)).thenReturn(Data.QUESTIONS).thenReturn(Data.REAL_QUESTIONS);
+
+        cache.findQuestionsByExamId(5L);
+        cache.findQuestionsByExamId(2L);
+        cache.saveQuestions(5L, Data.REAL_QUESTIONS);
+        cache.saveAllQuestions(Map.of(2L, Data.REAL_QUESTIONS));
+
+        assertEquals(Data.REAL_QUESTIONS, cache.findQuestionsByExamId(5L));
+        assertEquals(Data.REAL_QUESTIONS, cache.findQuestionsByExamId(2L));
+        verify(questionRepository).saveQuestions(5L, Data.REAL_QUESTIONS);
+        verify(questionRepository).saveAllQuestions(Map.of(2L, Data.REAL_QUESTIONS));
+    }
+
+    @Test
+    void testSaveQuestionsWithoutExamInvalidatesAll() {
+        final OffHeapQuestionCache cache = new OffHeapQuestionCache(questionRepository);
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(Data.QUESTIONS).thenReturn(Data.REAL_QUESTIONS);
+
+        cache.findQuestionsByExamId(5L);
+        cache.saveQuestions(Data.REAL_QUESTIONS);
+
+        assertEquals(Data.REAL_QUESTIONS, cache.findQuestionsByExamId(5L));
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void testServiceSavesInvalidateTheExam(@TempDir final Path directory) {
+        try (FileExamRepository exams = new FileExamRepository(directory.resolve("exams.dat"));
+             FileQuestionRepository questions = new FileQuestionRepository(directory.resolve("questions.dat"))) {
+            final OffHeapQuestionCache cache = new OffHeapQuestionCache(questions);
+            final ExamService service = new ExamServiceImpl(exams, cache);
+            final Exam physics = new Exam(null, "Physics");
+            physics.setQuestions(List.of("Question 1"));
+            final Exam saved = service.save(physics);
+            assertEquals(List.of("Question 1"), service.findExamWithQuestionsByName("Physics").getQuestions());
+
+            final Exam morePhysics = new Exam(saved.getId(), "Physics");
+            morePhysics.setQuestions(List.of("Question 2"));
+            service.save(morePhysics);
+
+            assertEquals(List.of("Question 2"), service.findExamWithQuestionsByName("Physics").getQuestions());
+        }
+    }
+
+    @Test
+    void testLoadStartedBeforeASaveIsNotCached() {
+        final OffHeapQuestionCache cache = new OffHeapQuestionCache(questionRepository);
+        when(questionRepository.findQuestionsByExamId(5L)).thenAnswer(invocation -> {
+            cache.invalidate(5L);
+            return Data.QUESTIONS;
+        }).thenReturn(Data.REAL_QUESTIONS);
+
+        assertEquals(Data.QUESTIONS, cache.findQuestionsByExamId(5L));
+        assertEquals(Data.REAL_QUESTIONS, cache.findQuestionsByExamId(5L));
+        assertEquals(Data.REAL_QUESTIONS, cache.findQuestionsByExamId(5L));
+        verify(questionRepository, times(2)).findQuestionsByExamId(5L);
+    }
+
+    @Test
+    void testSegmentedLruEviction() {
+        // One segment of 10 blocks, every question list uses 2 blocks
+        final OffHeapQuestionCache cache = new OffHeapQuestionCache(questionRepository, 10 * 64, 1, 64);
+        when(questionRepository.findQuestionsByExamId(anyLong())).thenAnswer(invocation -> List.of("Question of the exam " + invocation.getArgument(0) + " ".repeat(40)));
+
+        cache.findQuestionsByExamId(1L);
+        cache.findQuestionsByExamId(1L);
+        for (long id = 2; id <= 20; id++) {
+            cache.findQuestionsByExamId(id);
+        }
+        cache.findQuestionsByExamId(1L);
+
+        final OffHeapQuestionCache.CacheStats stats = cache.stats();
+        assertEquals(5, stats.entries());
+        assertEquals(15, stats.evictions());
+        assertEquals(2, stats.hits(), () -> "The protected exam must survive the scan of the other exams");
+        verify(questionRepository, times(1)).findQuestionsByExamId(1L);
+    }
+
+    @Test
+    void testTooBigQuestionsAreNotCached() {
+        final OffHeapQuestionCache cache = new OffHeapQuestionCache(questionRepository, 128, 1, 64);
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(List.of("x".repeat(200)));
+
+        cache.findQuestionsByExamId(5L);
+        cache.findQuestionsByExamId(5L);
+
+        verify(questionRepository, times(2)).findQuestionsByExamId(5L);
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void testFindQuestionsByExamIdsLoadsOnlyTheMisses() {
+        final OffHeapQuestionCache cache = new OffHeapQuestionCache(questionRepository);
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(Data.QUESTIONS);
+        when(questionRepository.findQuestionsByExamIds(Set.of(2L, 3L))).thenReturn(Map.of(2L, Data.REAL_QUESTIONS, 3L, List.of()));
+        cache.findQuestionsByExamId(5L);
+
+        final Map<Long, List<String>> questions = cache.findQuestionsByExamIds(List.of(5L, 2L, 3L));
+        cache.findQuestionsByExamIds(List.of(2L, 3L));
+
+        assertEquals(Data.QUESTIONS, questions.get(5L));
+        assertEquals(Data.REAL_QUESTIONS, questions.get(2L));
+        assertTrue(questions.get(3L).isEmpty());
+        verify(questionRepository, times(1)).findQuestionsByExamIds(anyCollection());
+        assertEquals(3, cache.stats().misses());
+        assertEquals(3, cache.stats().hits());
+    }
+
+    @Test
+    void testNullExamIdIsNotCached() {
+        final OffHeapQuestionCache cache = new OffHeapQuestionCache(questionRepository);
+        when(questionRepository.findQuestionsByExamId(null)).thenReturn(Data.QUESTIONS);
+
+        cache.findQuestionsByExamId(null);
+        cache.findQuestionsByExamId(null);
+        cache.saveQuestions(Data.QUESTIONS);
+
+        verify(questionRepository, times(2)).findQuestionsByExamId(null);
+        verify(questionRepository).saveQuestions(Data.QUESTIONS);
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapQuestionCache(questionRepository, 10, 1, 64));
+    }
+}
@@ -0,0 +1,177 @@
+package org.etamburini.mockitoapp.example.repositories;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedExamRepositoryTest {
+    @Mock
+    private ExamRepository shard1;
+    @Mock
+    private ExamRepository shard2;
+    @Mock
+    private QuestionRepository questionRepository;
+
+    private PartitionedExamRepository repository(final PartitionedExamRepository.Router router) {
+        return new PartitionedExamRepository(List.of(shard1, shard2), router, new BlockIdAllocator(), Executors.newCachedThreadPool());
+    }
+
+    @Test
+    void testFindAllMergesInShardOrder() {
+        final CountDownLatch secondShardAnswered = new CountDownLatch(1);
+        when(shard1.findAll()).thenAnswer(invocation -> {
+            secondShardAnswered.await(5, TimeUnit.SECONDS);
+            return List.of(new Exam(1L, "Math"), new Exam(3L, "History"));
+        });
+        when(shard2.findAll()).thenAnswer(invocation -> {
+            secondShardAnswered.countDown();
+            return List.of(new Exam(2L, "Languages"));
+        });
+
+        final List<Exam> exams = repository(PartitionedExamRepository.Router.hash()).findAll();
+
+        assertEquals(List.of(1L, 3L, 2L), exams.stream().map(Exam::getId).toList());
+    }
+
+    @Test
+    void testFindAllIsParallel() {
+        final PartitionedExamRepository repository = new PartitionedExamRepository(
+                List.of(new ExamRepositoryImpl(), new ExamRepositoryImpl(), new ExamRepositoryImpl(), new ExamRepositoryImpl()));
+
+        final List<Exam> exams = assertTimeoutPreemptively(Duration.ofMillis(2_500), repository::findAll,
+                () -> "The latency must be the one of the slowest shard, not the sum of the shards");
+
+        assertEquals(12, exams.size());
+    }
+
+    @Test
+    void testFindFirstByNameDoesNotWaitTheLaterShards() {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(shard1.findAll()).thenReturn(Data.EXAMS);
+        // The search of the second shard can be cancelled before it starts
+        lenient().when(shard2.findAll()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return Data.REAL_EXAMS;
+        });
+        final ExamService service = new ExamServiceImpl(repository(PartitionedExamRepository.Router.hash()), questionRepository);
+
+        try {
+            final Exam exam = assertTimeoutPreemptively(Duration.ofSeconds(2), () -> service.getExamByName("Languages").orElseThrow());
+
+            assertEquals("Languages mock", exam.getName(), () -> "The first shard must win although the second one also has a match");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testFindFirstByNameStopsTheScansOfTheLaterShards() throws InterruptedException {
+        final StreamingExamRepository streamingShard = mock(StreamingExamRepository.class);
+        final CountDownLatch scanning = new CountDownLatch(1);
+        final CountDownLatch scanClosed = new CountDownLatch(1);
+        final AtomicInteger scanned = new AtomicInteger();
+        when(shard1.findAll()).thenAnswer(invocation -> {
+            scanning.await(5, TimeUnit.SECONDS);
+            return Data.EXAMS;
+        });
+        when(streamingShard.streamAll()).thenReturn(Stream.generate(() -> {
+            scanning.countDown();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            return new Exam((long) scanned.incrementAndGet(), "History");
+        }).limit(10_000).onClose(scanClosed::countDown));
+        final PartitionedExamRepository repository = new PartitionedExamRepository(List.of(shard1, streamingShard),
+                PartitionedExamRepository.Router.hash(), new BlockIdAllocator(), Executors.newCachedThreadPool());
+
+        assertEquals("Languages mock", repository.findFirstByName("Languages").orElseThrow().getName());
+
+        assertTrue(scanClosed.await(2, TimeUnit.SECONDS), () -> "The scan of the later shard must stop once the search is answered");
+        assertTrue(scanned.get() < 10_000);
+    }
+
+    @Test
+    void testDefaultIdsGoOnAfterTheShards() {
+        when(shard1.maxId()).thenReturn(7L);
+        when(shard2.maxId()).thenReturn(12L);
+        final PartitionedExamRepository repository = new PartitionedExamRepository(List.of(shard1, shard2));
+        verify(shard1, never()).maxId();
+        final Exam exam = new Exam(null, "Math");
+
+        repository.save(exam);
+        repository.save(new Exam(null, "Languages"));
+
+        assertEquals(13L, exam.getId(), () -> "A new exam must not take the id of an exam of a shard");
+        verify(shard2).save(exam);
+        verify(shard1).maxId();
+        verify(shard2).maxId();
+        verify(shard1, never()).findAll();
+    }
+
+    @Test
+    void testFindFirstByNameInALaterShard() {
+        when(shard1.findAll()).thenReturn(List.of(new Exam(1L, "Math mock")));
+        when(shard2.findAll()).thenReturn(Data.REAL_EXAMS);
+        final PartitionedExamRepository repository = repository(PartitionedExamRepository.Router.hash());
+
+        assertEquals(2L, repository.findFirstByName("Languages").orElseThrow().getId());
+        assertEquals("Math mock", repository.findFirstByName("Math").orElseThrow().getName());
+        assertTrue(repository.findFirstByName("Physics").isEmpty());
+    }
+
+    @Test
+    void testShardFailure() {
+        when(shard1.findAll()).thenThrow(new IllegalStateException("Shard down"));
+        lenient().when(shard2.findAll()).thenReturn(Data.REAL_EXAMS);
+
+        final IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> repository(PartitionedExamRepository.Router.hash()).findAll());
+
+        assertEquals("Shard down", exception.getMessage());
+    }
+
+    @Test
+    void testSaveWithHashRouting() {
+        final PartitionedExamRepository repository = repository(PartitionedExamRepository.Router.hash());
+        final Exam even = new Exam(4L, "Math");
+        final Exam odd = new Exam(null, "Languages");
+
+        repository.save(even);
+        repository.save(odd);
+
+        assertEquals(5L, odd.getId(), () -> "The id must be assigned before the exam is routed");
+        verify(shard1).save(even);
+        verify(shard2).save(odd);
+    }
+
+    @Test
+    void testSaveAllWithRangeRouting() {
+        final PartitionedExamRepository repository = repository(PartitionedExamRepository.Router.range(2, 100L));
+        final List<Exam> exams = List.of(new Exam(99L, "Math"), new Exam(100L, "Languages"), new Exam(5L, "History"));
+
+        assertSame(exams, repository.saveAll(exams));
+
+        verify(shard1).saveAll(List.of(exams.get(0), exams.get(2)));
+        verify(shard2).saveAll(List.of(exams.get(1)));
+        assertThrows(IllegalArgumentException.class, () -> PartitionedExamRepository.Router.range(3, 10L, 10L));
+        assertThrows(IllegalArgumentException.class, () -> PartitionedExamRepository.Router.range(2, 10L, 20L));
+        assertThrows(IllegalStateException.class, () -> PartitionedExamRepository.Router.range(3, 10L, 20L).shardOf(1L, 2));
+    }
+}
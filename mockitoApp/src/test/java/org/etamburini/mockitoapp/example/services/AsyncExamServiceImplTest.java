@@ -0,0 +1,193 @@
+package org.etamburini.mockitoapp.example.services;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.AsyncExamRepository;
+import org.etamburini.mockitoapp.example.repositories.AsyncExamRepositoryAdapter;
+import org.etamburini.mockitoapp.example.repositories.AsyncQuestionRepository;
+import org.etamburini.mockitoapp.example.repositories.AsyncQuestionRepositoryAdapter;
+import org.etamburini.mockitoapp.example.repositories.ExamRepository;
+import org.etamburini.mockitoapp.example.repositories.FileExamRepository;
+import org.etamburini.mockitoapp.example.repositories.FileQuestionRepository;
+import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncExamServiceImplTest {
+    @Mock
+    private AsyncExamRepository repository;
+    @Mock
+    private AsyncQuestionRepository questionRepository;
+    @InjectMocks
+    private AsyncExamServiceImpl service;
+
+    @Test
+    void testGetExamByName() throws Exception {
+        when(repository.findAll()).thenReturn(CompletableFuture.completedFuture(Data.EXAMS));
+
+        assertEquals(5L, service.getExamByName("Math mock").get().orElseThrow().getId());
+        assertTrue(service.getExamByName("Physics").get().isEmpty());
+    }
+
+    @Test
+    void testFindExamWithQuestionsByName() throws Exception {
+        when(repository.findAll()).thenReturn(CompletableFuture.completedFuture(Data.EXAMS));
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(CompletableFuture.completedFuture(Data.QUESTIONS));
+
+        final Exam exam = service.findExamWithQuestionsByName("Math mock").get();
+
+        assertEquals(5, exam.getQuestions().size());
+        assertNull(service.findExamWithQuestionsByName("Physics").get());
+        verify(questionRepository, times(1)).findQuestionsByExamId(anyLong());
+    }
+
+    @Test
+    void testFindExamWithQuestionsById() throws Exception {
+        when(repository.findById(3L)).thenReturn(CompletableFuture.completedFuture(Data.EXAMS.stream().filter(exam -> exam.getId() == 3L).findFirst()));
+        when(questionRepository.findQuestionsByExamId(3L)).thenReturn(CompletableFuture.completedFuture(Data.QUESTIONS));
+
+        final Exam exam = service.findExamWithQuestionsById(3L).get();
+
+        assertEquals("History mock", exam.getName());
+        assertEquals(5, exam.getQuestions().size());
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void testSaveExamWithQuestions() throws Exception {
+        final Exam exam = new Exam(null, "Physics");
+        exam.setQuestions(Data.QUESTIONS);
+        when(questionRepository.savesQuestionsByExamId()).thenReturn(true);
+        when(questionRepository.saveQuestions(8L, Data.QUESTIONS)).thenReturn(CompletableFuture.completedFuture(null));
+        when(repository.save(exam)).thenReturn(CompletableFuture.completedFuture(Data.EXAM));
+
+        assertEquals(8L, service.save(exam).get().getId());
+        verify(questionRepository).saveQuestions(8L, Data.QUESTIONS);
+    }
+
+    @Test
+    void testSaveFailsWhenQuestionsFail() {
+        final Exam exam = new Exam(null, "Physics");
+        exam.setQuestions(Data.QUESTIONS);
+        when(questionRepository.savesQuestionsByExamId()).thenReturn(true);
+        when(repository.save(exam)).thenReturn(CompletableFuture.completedFuture(Data.EXAM));
+        when(questionRepository.saveQuestions(anyLong(), anyList())).thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException()));
+
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> service.save(exam).get());
+
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        verify(repository).save(exam);
+    }
+
+    @Test
+    void testSaveQuestionsBeforeTheExamWithoutExamIds() throws Exception {
+        final Exam exam = new Exam(null, "Physics");
+        exam.setQuestions(Data.QUESTIONS);
+        when(questionRepository.saveQuestions(Data.QUESTIONS)).thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException()));
+
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> service.save(exam).get());
+
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testSaveWhenTheRepositoryReturnsNoExam() throws Exception {
+        final Exam exam = new Exam(9L, "Physics");
+        exam.setQuestions(Data.QUESTIONS);
+        when(questionRepository.savesQuestionsByExamId()).thenReturn(true);
+        when(repository.save(exam)).thenReturn(CompletableFuture.completedFuture(null));
+        when(questionRepository.saveQuestions(9L, Data.QUESTIONS)).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertNull(service.save(exam).get());
+        verify(questionRepository).saveQuestions(9L, Data.QUESTIONS);
+    }
+
+    @Test
+    void testSaveNewExamWithQuestionsInFiles(@TempDir final Path directory) throws Exception {
+        try (FileExamRepository files = new FileExamRepository(directory.resolve("exams.dat"));
+             FileQuestionRepository questionFiles = new FileQuestionRepository(directory.resolve("questions.dat"))) {
+            final AsyncExamService fileService = new AsyncExamServiceImpl(new AsyncExamRepositoryAdapter(files),
+                    new AsyncQuestionRepositoryAdapter(questionFiles));
+            final Exam physics = new Exam(null, "Physics");
+            physics.setQuestions(Data.QUESTIONS);
+
+            final Exam saved = fileService.save(physics).get(5, TimeUnit.SECONDS);
+            final Exam found = fileService.findExamWithQuestionsById(saved.getId()).get(5, TimeUnit.SECONDS);
+
+            assertEquals("Physics", found.getName());
+            assertEquals(Data.QUESTIONS, found.getQuestions());
+        }
+    }
+
+    @Test
+    void testTimeout() {
+        when(repository.findAll()).thenReturn(new CompletableFuture<>());
+
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> service.getExamByName("Math", Duration.ofMillis(50)).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(TimeoutException.class, exception.getCause());
+    }
+
+    @Test
+    void testLookupsOverlapWithBlockingRepositories() {
+        final ExamRepository slowRepository = new ExamRepository() {
+            @Override
+            public List<Exam> findAll() {
+                sleep();
+                return Data.REAL_EXAMS;
+            }
+
+            @Override
+            public Exam save(final Exam exam) {
+                return exam;
+            }
+        };
+        final QuestionRepository slowQuestionRepository = new QuestionRepository() {
+            @Override
+            public List<String> findQuestionsByExamId(final Long id) {
+                sleep();
+                return Data.REAL_QUESTIONS;
+            }
+
+            @Override
+            public void saveQuestions(final List<String> questions) {
+            }
+        };
+        final AsyncExamService realService = new AsyncExamServiceImpl(new AsyncExamRepositoryAdapter(slowRepository),
+                new AsyncQuestionRepositoryAdapter(slowQuestionRepository));
+
+        final long start = System.nanoTime();
+        final CompletableFuture<Exam> future = realService.findExamWithQuestionsById(2L);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(250), () -> "The caller must not wait the repositories");
+
+        final Exam exam = assertTimeoutPreemptively(Duration.ofMillis(750), () -> future.get(), () -> "The lookups must overlap");
+        assertEquals("Languages", exam.getName());
+        assertEquals(Data.REAL_QUESTIONS, exam.getQuestions());
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(500);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -4,10 +4,14 @@ import org.etamburini.mockitoapp.example.Data;
 import org.etamburini.mockitoapp.example.models.Exam;
 import org.etamburini.mockitoapp.example.repositories.ExamRepository;
 import org.etamburini.mockitoapp.example.repositories.ExamRepositoryImpl;
+import org.etamburini.mockitoapp.example.repositories.FileExamRepository;
+import org.etamburini.mockitoapp.example.repositories.FileQuestionRepository;
 import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
 import org.etamburini.mockitoapp.example.repositories.QuestionRepositoryImpl;
+import org.etamburini.mockitoapp.example.repositories.StreamingExamRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.*;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -15,7 +19,15 @@ import org.mockito.stubbing.Answer;
 
 import static org.mockito.Mockito.*;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,6 +62,22 @@ class ExamServiceImplTest {
         assertEquals(5L, exam.orElseThrow().getId());
     }
 
+    @Test
+    void getTestByNameStreamingMock() {
+        final StreamingExamRepository streamingRepository = mock(StreamingExamRepository.class);
+        final AtomicInteger readExams = new AtomicInteger();
+        final AtomicBoolean closed = new AtomicBoolean();
+        when(streamingRepository.streamAll()).thenReturn(Data.EXAMS.stream().peek(exam -> readExams.incrementAndGet()).onClose(() -> closed.set(true)));
+        final ExamService streamingService = new ExamServiceImpl(streamingRepository, questionRepository);
+
+        final Optional<Exam> exam = streamingService.getExamByName("Languages");
+
+        assertEquals(2L, exam.orElseThrow().getId());
+        assertEquals(2, readExams.get(), () -> "The exams after the first match must not be read");
+        assertTrue(closed.get());
+        verify(streamingRepository, never()).findAll();
+    }
+
     @Test
     void getTestByNameInEmptyListMock() {
         final List<Exam> exams = Collections.emptyList();
@@ -94,6 +122,139 @@ class ExamServiceImplTest {
         verify(repository).findAll();
     }
 
+    @Test
+    void testFindExamsWithQuestionsByNames() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(questionRepository.findQuestionsByExamIds(anyCollection())).thenReturn(Map.of(5L, Data.QUESTIONS, 3L, Data.REAL_QUESTIONS));
+
+        final Map<String, Exam> exams = service.findExamsWithQuestionsByNames(List.of("History", "Math", "Physics", "Math mock"));
+
+        assertEquals(List.of("History", "Math", "Math mock"), new ArrayList<>(exams.keySet()));
+        assertEquals(exams.get("Math").getId(), exams.get("Math mock").getId());
+        assertEquals(Data.REAL_QUESTIONS, exams.get("History").getQuestions());
+        assertEquals(Data.QUESTIONS, exams.get("Math").getQuestions());
+        verify(repository, times(1)).findAll();
+        verify(questionRepository).findQuestionsByExamIds(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(3L, 5L))));
+        verify(questionRepository, never()).findQuestionsByExamId(anyLong());
+    }
+
+    @Test
+    void testQuestionsExamDoesNotChangeTheRepositoryExam() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(Data.QUESTIONS);
+
+        final Exam exam = service.findExamWithQuestionsByName("Math mock");
+
+        assertEquals(Data.QUESTIONS, exam.getQuestions());
+        assertNotSame(Data.EXAMS.get(0), exam);
+        assertTrue(Data.EXAMS.get(0).getQuestions().isEmpty());
+    }
+
+    @Test
+    void testLazyExamLoadsQuestionsOnFirstAccess() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(Data.QUESTIONS);
+
+        final Exam exam = service.findLazyExamByName("Math");
+
+        assertEquals(5L, exam.getId());
+        assertEquals("Math mock", exam.getName());
+        assertFalse(exam.isQuestionsLoaded());
+        verify(questionRepository, never()).findQuestionsByExamId(anyLong());
+
+        assertEquals(Data.QUESTIONS, exam.getQuestions());
+        assertEquals(Data.QUESTIONS, exam.getQuestions());
+        assertTrue(exam.isQuestionsLoaded());
+        verify(questionRepository, times(1)).findQuestionsByExamId(5L);
+        assertNull(service.findLazyExamByName("Physics"));
+    }
+
+    @Test
+    void testLazyExamLoadsOnceWithConcurrentReaders() throws Exception {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(questionRepository.findQuestionsByExamId(5L)).thenAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(100);
+            return Data.QUESTIONS;
+        });
+        final Exam exam = service.findLazyExamByName("Math");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(exam::getQuestions));
+            }
+            for (Future<List<String>> future : futures) {
+                assertEquals(Data.QUESTIONS, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(questionRepository, times(1)).findQuestionsByExamId(5L);
+    }
+
+    @Test
+    void testLazyExamRetriesAFailedLoad() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(questionRepository.findQuestionsByExamId(5L)).thenThrow(new IllegalStateException("Repository down")).thenReturn(Data.QUESTIONS);
+        final Exam exam = service.findLazyExamByName("Math");
+
+        assertThrows(IllegalStateException.class, exam::getQuestions);
+        assertFalse(exam.isQuestionsLoaded());
+        assertEquals(Data.QUESTIONS, exam.getQuestions());
+    }
+
+    @Test
+    void testPrefetchQuestions() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(questionRepository.findQuestionsByExamIds(anyCollection())).thenReturn(Map.of(5L, Data.QUESTIONS, 3L, Data.REAL_QUESTIONS));
+        final Exam math = service.findLazyExamByName("Math");
+        final Exam history = service.findLazyExamByName("History");
+        final Exam loaded = new Exam(2L, "Languages mock");
+
+        service.prefetchQuestions(List.of(math, history, loaded));
+
+        assertTrue(math.isQuestionsLoaded());
+        assertEquals(Data.QUESTIONS, math.getQuestions());
+        assertEquals(Data.REAL_QUESTIONS, history.getQuestions());
+        assertTrue(loaded.getQuestions().isEmpty());
+        verify(questionRepository).findQuestionsByExamIds(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(5L, 3L))));
+        verify(questionRepository, never()).findQuestionsByExamId(anyLong());
+
+        service.prefetchQuestions(List.of(math, history));
+        verify(questionRepository, times(1)).findQuestionsByExamIds(anyCollection());
+    }
+
+    @Test
+    void testFindExamsWithQuestionsByNamesWithoutExams() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+
+        final Map<String, Exam> exams = service.findExamsWithQuestionsByNames(List.of("Physics", "Chemistry"));
+
+        assertTrue(exams.isEmpty());
+        verify(questionRepository, never()).findQuestionsByExamIds(anyCollection());
+    }
+
+    @Test
+    void testFindQuestionsByExamIdsDefaultMethod() {
+        final QuestionRepository perIdRepository = new QuestionRepository() {
+            @Override
+            public List<String> findQuestionsByExamId(final Long id) {
+                return id == 5L ? Data.QUESTIONS : Data.REAL_QUESTIONS;
+            }
+
+            @Override
+            public void saveQuestions(final List<String> questions) {
+            }
+        };
+
+        final Map<Long, List<String>> questions = perIdRepository.findQuestionsByExamIds(List.of(5L, 2L));
+
+        assertEquals(Data.QUESTIONS, questions.get(5L));
+        assertEquals(Data.REAL_QUESTIONS, questions.get(2L));
+    }
+
     @Test
     void testSaveExam() {
         when(repository.save(Data.EXAM)).thenReturn(Data.EXAM);
@@ -124,6 +285,67 @@ class ExamServiceImplTest {
         verify(questionRepository).saveQuestions(anyList());
     }
 
+    @Test
+    void testSaveQuestionsUnderTheSavedExamId() {
+        final Exam physics = new Exam(null, "Physics");
+        physics.setQuestions(Data.QUESTIONS);
+        when(questionRepository.savesQuestionsByExamId()).thenReturn(true);
+        when(repository.save(physics)).thenReturn(new Exam(8L, "Physics"));
+
+        assertEquals(8L, service.save(physics).getId());
+
+        final InOrder inOrder = inOrder(repository, questionRepository);
+        inOrder.verify(repository).save(physics);
+        inOrder.verify(questionRepository).saveQuestions(8L, Data.QUESTIONS);
+        verify(questionRepository, never()).saveQuestions(anyList());
+    }
+
+    @Test
+    void testSaveWhenTheRepositoryReturnsNoExam() {
+        final Exam physics = new Exam(9L, "Physics");
+        physics.setQuestions(Data.QUESTIONS);
+        final Exam chemistry = new Exam(null, "Chemistry");
+        chemistry.setQuestions(Data.REAL_QUESTIONS);
+        when(questionRepository.savesQuestionsByExamId()).thenReturn(true);
+
+        assertNull(service.save(physics));
+        assertNull(service.save(chemistry));
+
+        verify(questionRepository).saveQuestions(9L, Data.QUESTIONS);
+        verify(questionRepository).saveQuestions(Data.REAL_QUESTIONS);
+    }
+
+    @Test
+    void testExamStaysSavedWhenItsQuestionsFail() {
+        final Exam physics = new Exam(null, "Physics");
+        physics.setQuestions(Data.QUESTIONS);
+        when(questionRepository.savesQuestionsByExamId()).thenReturn(true);
+        when(repository.save(physics)).thenReturn(new Exam(8L, "Physics"));
+        doThrow(IllegalArgumentException.class).when(questionRepository).saveQuestions(anyLong(), anyList());
+
+        assertThrows(IllegalArgumentException.class, () -> service.save(physics));
+
+        verify(repository).save(physics);
+    }
+
+    @Test
+    void testSaveNewExamWithQuestionsInFiles(@TempDir final Path directory) {
+        try (FileExamRepository files = new FileExamRepository(directory.resolve("exams.dat"));
+             FileQuestionRepository questionFiles = new FileQuestionRepository(directory.resolve("questions.dat"))) {
+            final ExamService fileService = new ExamServiceImpl(files, questionFiles);
+            final Exam physics = new Exam(null, "Physics");
+            physics.setQuestions(Data.QUESTIONS);
+
+            final Exam saved = fileService.save(physics);
+            final Exam found = fileService.findExamWithQuestionsByName("Physics");
+
+            assertNotNull(saved.getId());
+            assertEquals(saved.getId(), found.getId());
+            assertEquals(Data.QUESTIONS, found.getQuestions());
+            assertEquals(List.of(), questionFiles.findQuestionsByExamId(null));
+        }
+    }
+
     @Test
     void testSaveExamWithIncrementalID() {
         final Exam currentExam = new Exam(8L, "Physical mock"); //It is because if I use Data.EXAM, the id will increment and other tests could be failed
@@ -0,0 +1,93 @@
+package org.etamburini.mockitoapp.example.services;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.ExamRepository;
+import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IndexedExamServiceImplTest {
+    @Mock
+    private ExamRepository repository;
+    @Mock
+    private QuestionRepository questionRepository;
+
+    private IndexedExamServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IndexedExamServiceImpl(repository, questionRepository);
+    }
+
+    @Test
+    void testIndexIsBuiltOnce() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+
+        assertEquals(5L, service.getExamByName("Math").orElseThrow().getId());
+        assertEquals(2L, service.getExamByName("Languages mock").orElseThrow().getId());
+        assertTrue(service.getExamByName("Physics").isEmpty());
+
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void testFindExamWithQuestionsByName() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(questionRepository.findQuestionsByExamId(5L)).thenReturn(Data.QUESTIONS);
+
+        final Exam exam = service.findExamWithQuestionsByName("Math mock");
+
+        assertEquals(5, exam.getQuestions().size());
+        verify(questionRepository).findQuestionsByExamId(5L);
+    }
+
+    @Test
+    void testFindExamsWithQuestionsByNames() {
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(questionRepository.findQuestionsByExamIds(anyCollection())).thenReturn(Map.of(2L, Data.QUESTIONS));
+
+        final Map<String, Exam> exams = service.findExamsWithQuestionsByNames(List.of("Languages", "Physics"));
+        service.findExamsWithQuestionsByNames(List.of("Languages mock"));
+
+        assertEquals(1, exams.size());
+        assertEquals(Data.QUESTIONS, exams.get("Languages").getQuestions());
+        verify(repository, times(1)).findAll();
+        verify(questionRepository, times(2)).findQuestionsByExamIds(anyCollection());
+    }
+
+    @Test
+    void testSaveUpdatesTheIndex() {
+        final Exam physics = new Exam(8L, "Physics mock");
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        when(repository.save(physics)).thenReturn(physics);
+
+        assertTrue(service.getExamByName("Physics").isEmpty());
+        service.save(physics);
+
+        assertSame(physics, service.getExamByName("Physics").orElseThrow());
+        verify(repository, times(1)).findAll();
+        verify(questionRepository, never()).saveQuestions(anyLong(), anyList());
+    }
+
+    @Test
+    void testRefreshIndex() {
+        when(repository.findAll()).thenReturn(Data.EXAMS).thenReturn(Data.REAL_EXAMS);
+
+        assertEquals("Math mock", service.getExamByName("Math").orElseThrow().getName());
+        service.refreshIndex();
+
+        assertEquals("Math", service.getExamByName("Math").orElseThrow().getName());
+        verify(repository, times(2)).findAll();
+    }
+}
@@ -0,0 +1,241 @@
+package org.etamburini.mockitoapp.example.services;
+
+import org.etamburini.mockitoapp.example.Data;
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.ExamRepository;
+import org.etamburini.mockitoapp.example.repositories.FileExamRepository;
+import org.etamburini.mockitoapp.example.repositories.FileQuestionRepository;
+import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindExamServiceImplTest {
+    @Mock
+    private ExamRepository repository;
+    @Mock
+    private QuestionRepository questionRepository;
+    @TempDir
+    Path directory;
+
+    private WriteBehindExamServiceImpl service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    private WriteBehindExamServiceImpl service(final int batchSize, final Duration maxDelay) {
+        service = new WriteBehindExamServiceImpl(repository, questionRepository, new BlockIdAllocator(), batchSize, maxDelay);
+        return service;
+    }
+
+    @Test
+    void testSaveAssignsIdsAndBuffers() {
+        service(100, Duration.ofMinutes(1));
+        final Exam math = new Exam(null, "Math");
+        math.setQuestions(Data.QUESTIONS);
+
+        assertEquals(1L, service.save(math).getId());
+        assertEquals(2L, service.save(new Exam(null, "Languages")).getId());
+        assertEquals(8L, service.save(new Exam(8L, "Physics")).getId());
+        assertEquals(3, service.pendingExams());
+        verifyNoInteractions(repository, questionRepository);
+
+        service.flush();
+
+        verify(questionRepository).saveAllQuestions(Map.of(1L, Data.QUESTIONS));
+        verify(repository).saveAll(argThat(exams -> exams.stream().map(Exam::getId).toList().equals(List.of(1L, 2L, 8L))));
+        verify(repository, never()).save(any(Exam.class));
+        assertEquals(0, service.pendingExams());
+    }
+
+    @Test
+    void testFullBatchIsFlushed() {
+        service(4, Duration.ofMinutes(1));
+
+        // Only the last save fills the batch, more saves could race the flusher into a smaller batch
+        for (int i = 0; i < 4; i++) {
+            service.save(new Exam(null, "Exam " + i));
+        }
+
+        verify(repository, timeout(5_000)).saveAll(argThat(exams -> exams.size() == 4));
+    }
+
+    @Test
+    void testBatchIsFlushedAfterTheMaxDelay() {
+        service(1_000, Duration.ofMillis(50));
+
+        service.save(new Exam(null, "Math"));
+
+        verify(repository, timeout(5_000)).saveAll(argThat(exams -> exams.size() == 1));
+    }
+
+    @Test
+    void testCloseFlushes() {
+        service(1_000, Duration.ofMinutes(1));
+        service.save(new Exam(null, "Math"));
+
+        service.close();
+
+        verify(repository).saveAll(anyList());
+        assertThrows(IllegalStateException.class, () -> service.save(new Exam(null, "Languages")));
+    }
+
+    @Test
+    void testFailedBatchIsWrittenAgain() {
+        service(1_000, Duration.ofMinutes(1));
+        when(repository.saveAll(anyList())).thenThrow(new IllegalStateException("Repository down")).thenReturn(List.of());
+        service.save(new Exam(null, "Math"));
+
+        assertThrows(IllegalStateException.class, () -> service.flush());
+        assertEquals("Repository down", service.getFailure().orElseThrow().getMessage());
+        assertEquals(1, service.pendingExams());
+
+        service.flush();
+
+        assertTrue(service.getFailure().isEmpty());
+        assertEquals(0, service.pendingExams());
+        verify(repository, times(2)).saveAll(argThat(exams -> exams.size() == 1 && exams.get(0).getName().equals("Math")));
+    }
+
+    @Test
+    void testLastSaveOfAnExamInABatchWins() {
+        service(1_000, Duration.ofMinutes(1));
+        final Exam math = new Exam(5L, "Math");
+        math.setQuestions(Data.QUESTIONS);
+        final Exam moreMath = new Exam(5L, "More math");
+        moreMath.setQuestions(Data.REAL_QUESTIONS);
+        final Exam languages = new Exam(6L, "Languages");
+        service.save(math);
+        service.save(languages);
+        service.save(moreMath);
+
+        service.flush();
+
+        verify(questionRepository).saveAllQuestions(Map.of(5L, Data.REAL_QUESTIONS));
+        verify(repository).saveAll(List.of(languages, moreMath));
+    }
+
+    @Test
+    void testFailedBatchDoesNotDuplicateQuestions() {
+        try (FileQuestionRepository questions = new FileQuestionRepository(directory.resolve("questions.db"))) {
+            service = new WriteBehindExamServiceImpl(repository, questions, new BlockIdAllocator(), 1_000, Duration.ofMinutes(1));
+            when(repository.saveAll(anyList())).thenThrow(new IllegalStateException("Repository down")).thenReturn(List.of());
+            final Exam math = new Exam(null, "Math");
+            math.setQuestions(Data.QUESTIONS);
+            service.save(math);
+
+            assertThrows(IllegalStateException.class, () -> service.flush());
+            service.flush();
+
+            assertEquals(Data.QUESTIONS, questions.findQuestionsByExamId(math.getId()));
+            service.close();
+        }
+    }
+
+    @Test
+    void testSearchFlushesFirst() {
+        service(1_000, Duration.ofMinutes(1));
+        when(repository.findAll()).thenReturn(Data.EXAMS);
+        service.save(new Exam(null, "Physics"));
+
+        service.getExamByName("Math");
+
+        verify(repository).saveAll(anyList());
+        verify(repository).findAll();
+    }
+
+    @Test
+    void testWriteBehindWithFileRepositories() {
+        final Path exams = directory.resolve("exams.db");
+        final Path questions = directory.resolve("questions.db");
+        final List<Long> ids = new ArrayList<>();
+        try (FileExamRepository examRepository = new FileExamRepository(exams);
+             FileQuestionRepository questionRepository = new FileQuestionRepository(questions);
+             WriteBehindExamServiceImpl writeBehind = new WriteBehindExamServiceImpl(examRepository, questionRepository,
+                     new BlockIdAllocator(), 64, Duration.ofMillis(10))) {
+            for (int i = 0; i < 1_000; i++) {
+                final Exam exam = new Exam(null, "Exam " + i);
+                exam.setQuestions(List.of("Question " + i));
+                ids.add(writeBehind.save(exam).getId());
+            }
+        }
+
+        try (FileExamRepository examRepository = new FileExamRepository(exams);
+             FileQuestionRepository questionRepository = new FileQuestionRepository(questions)) {
+            assertEquals(1_000, examRepository.size());
+            assertEquals("Exam 500", examRepository.findById(ids.get(500)).orElseThrow().getName());
+            assertEquals(List.of("Question 999"), questionRepository.findQuestionsByExamId(ids.get(999)));
+        }
+    }
+
+    @Test
+    void testDefaultIdsGoOnAfterAReopenedRepository() {
+        final Path exams = directory.resolve("exams.db");
+        final long firstId;
+        try (FileExamRepository examRepository = new FileExamRepository(exams, new BlockIdAllocator());
+             WriteBehindExamServiceImpl writeBehind = new WriteBehindExamServiceImpl(examRepository, questionRepository)) {
+            firstId = writeBehind.save(new Exam(null, "Math")).getId();
+        }
+
+        try (FileExamRepository examRepository = new FileExamRepository(exams, new BlockIdAllocator());
+             WriteBehindExamServiceImpl writeBehind = new WriteBehindExamServiceImpl(examRepository, questionRepository)) {
+            assertTrue(writeBehind.save(new Exam(null, "Languages")).getId() > firstId);
+        }
+
+        try (FileExamRepository examRepository = new FileExamRepository(exams)) {
+            assertEquals(2, examRepository.size(), () -> "The exam of the previous run must not be overwritten");
+            assertEquals("Math", examRepository.findById(firstId).orElseThrow().getName());
+        }
+    }
+
+    @Test
+    void testSaveRacingCloseIsWritten() throws InterruptedException {
+        final CountDownLatch saving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final BlockIdAllocator blockingAllocator = new BlockIdAllocator() {
+            @Override
+            public long nextId() {
+                saving.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.nextId();
+            }
+        };
+        service = new WriteBehindExamServiceImpl(repository, questionRepository, blockingAllocator, 100, Duration.ofMinutes(1));
+        final Exam math = new Exam(null, "Math");
+
+        final Thread saver = Thread.ofPlatform().start(() -> service.save(math));
+        assertTrue(saving.await(10, TimeUnit.SECONDS));
+        final Thread closer = Thread.ofPlatform().start(service::close);
+        closer.join(500);
+        release.countDown();
+        saver.join(10_000);
+        closer.join(10_000);
+
+        assertEquals(0, service.pendingExams());
+        verify(repository).saveAll(argThat(exams -> exams.contains(math)));
+    }
+}
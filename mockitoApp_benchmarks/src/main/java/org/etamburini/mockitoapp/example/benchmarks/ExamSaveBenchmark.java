@@ -0,0 +1,84 @@
+package org.etamburini.mockitoapp.example.benchmarks;
+
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.FileExamRepository;
+import org.etamburini.mockitoapp.example.repositories.FileQuestionRepository;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.etamburini.mockitoapp.example.services.WriteBehindExamServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExamSaveBenchmark {
+    private static final int EXAMS = 1_000;
+    private static final List<String> QUESTIONS = List.of("Question 1", "Question 2", "Question 3", "Question 4", "Question 5");
+
+    @State(Scope.Benchmark)
+    public static class Repositories {
+        private Path directory;
+        private FileExamRepository examRepository;
+        private FileQuestionRepository questionRepository;
+        private ExamService synchronousService;
+        private WriteBehindExamServiceImpl writeBehindService;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("exams");
+            examRepository = new FileExamRepository(directory.resolve("exams.db"));
+            questionRepository = new FileQuestionRepository(directory.resolve("questions.db"));
+            synchronousService = new ExamServiceImpl(examRepository, questionRepository);
+            writeBehindService = new WriteBehindExamServiceImpl(examRepository, questionRepository, new BlockIdAllocator(),
+                    WriteBehindExamServiceImpl.DEFAULT_BATCH_SIZE, WriteBehindExamServiceImpl.DEFAULT_MAX_DELAY);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            writeBehindService.close();
+            examRepository.close();
+            questionRepository.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static Exam exam(final int index) {
+        final Exam exam = new Exam(null, "Exam " + index);
+        exam.setQuestions(QUESTIONS);
+        return exam;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EXAMS)
+    public void synchronousSave(final Repositories state) {
+        for (int i = 0; i < EXAMS; i++) {
+            state.synchronousService.save(exam(i));
+        }
+    }
+
+    // The flush is measured, so every exam is on the disk at the end of the invocation
+    @Benchmark
+    @OperationsPerInvocation(EXAMS)
+    public void writeBehindSave(final Repositories state) {
+        for (int i = 0; i < EXAMS; i++) {
+            state.writeBehindService.save(exam(i));
+        }
+        state.writeBehindService.flush();
+    }
+}
@@ -0,0 +1,90 @@
+package org.etamburini.mockitoapp.example.benchmarks;
+
+import org.etamburini.mockitoapp.example.models.Exam;
+import org.etamburini.mockitoapp.example.repositories.ExamRepository;
+import org.etamburini.mockitoapp.example.repositories.QuestionRepository;
+import org.etamburini.mockitoapp.example.services.ExamService;
+import org.etamburini.mockitoapp.example.services.ExamServiceImpl;
+import org.etamburini.mockitoapp.example.services.IndexedExamServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExamSearchBenchmark {
+    private static final String[] SUBJECTS = {"Math", "Languages", "History", "Physics", "Chemistry", "Biology", "Art", "Music"};
+
+    @State(Scope.Benchmark)
+    public static class Exams {
+        @Param({"1000", "100000", "500000"})
+        private int exams;
+
+        private ExamService scanService;
+        private ExamService indexedService;
+        private String[] queries;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final Random random = new Random(42);
+            final List<Exam> all = new ArrayList<>(exams);
+            for (long id = 0; id < exams; id++) {
+                all.add(new Exam(id, SUBJECTS[random.nextInt(SUBJECTS.length)] + " exam " + id));
+            }
+            final ExamRepository repository = new ExamRepository() {
+                @Override
+                public List<Exam> findAll() {
+                    return all;
+                }
+
+                @Override
+                public Exam save(final Exam exam) {
+                    return exam;
+                }
+            };
+            final QuestionRepository questionRepository = new QuestionRepository() {
+                @Override
+                public List<String> findQuestionsByExamId(final Long id) {
+                    return List.of();
+                }
+
+                @Override
+                public void saveQuestions(final List<String> questions) {
+                }
+            };
+            scanService = new ExamServiceImpl(repository, questionRepository);
+            indexedService = new IndexedExamServiceImpl(repository, questionRepository);
+            indexedService.getExamByName("");
+
+            // Half of the queries hit an exam of the second half of the list and the other half miss every exam
+            queries = new String[1024];
+            for (int i = 0; i < queries.length; i++) {
+                queries[i] = i % 2 == 0
+                        ? "exam " + (exams / 2 + random.nextInt(exams / 2))
+                        : "exam " + (exams + random.nextInt(exams));
+            }
+        }
+
+        private String nextQuery() {
+            return queries[next++ & (queries.length - 1)];
+        }
+    }
+
+    @Benchmark
+    public Optional<Exam> streamScan(final Exams state) {
+        return state.scanService.getExamByName(state.nextQuery());
+    }
+
+    @Benchmark
+    public Optional<Exam> nameIndex(final Exams state) {
+        return state.indexedService.getExamByName(state.nextQuery());
+    }
+}
@@ -0,0 +1,59 @@
+package org.etamburini.mockitoapp.example.benchmarks;
+
+import org.etamburini.mockitoapp.example.ids.BlockIdAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocatorBenchmark {
+    @State(Scope.Benchmark)
+    public static class Allocators {
+        private BlockIdAllocator blockAllocator;
+        private AtomicLong sequence;
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("ids");
+            blockAllocator = new BlockIdAllocator(directory.resolve("exams.ids"));
+            sequence = new AtomicLong();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(directory.resolve("exams.ids"));
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Benchmark
+    public long blockAllocator(final Allocators state) {
+        return state.blockAllocator.nextId();
+    }
+
+    @Benchmark
+    public long atomicSequence(final Allocators state) {
+        return state.sequence.incrementAndGet();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long blockAllocator4Threads(final Allocators state) {
+        return state.blockAllocator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long atomicSequence4Threads(final Allocators state) {
+        return state.sequence.incrementAndGet();
+    }
+}